@@ -0,0 +1,105 @@
+package com.example.qr_menu.configurations;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps how many callers hold a database connection at the same time.
+ * With virtual threads Tomcat accepts thousands of concurrent requests, and the ones that
+ * need the database would all wait for the same few pooled connections - inside pool and
+ * JDBC driver code that may pin the carrier thread. Waiting on this semaphore instead parks
+ * the virtual thread cheaply. Only work that actually opens a connection takes a permit, so
+ * cached, 304 and other database-free requests are never queued behind it.
+ * A caller that waits longer than the timeout gets a {@link SQLTransientConnectionException},
+ * which surfaces as a 503 with Retry-After (see GlobalExceptionHandler).
+ */
+public class ConnectionLimitingDataSource extends DelegatingDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionLimitingDataSource.class);
+
+    private final Semaphore permits;
+    private final long queueTimeoutMillis;
+
+    public ConnectionLimitingDataSource(DataSource target, int maxConnections, long queueTimeoutMillis) {
+        super(target);
+        this.permits = new Semaphore(maxConnections, true);
+        this.queueTimeoutMillis = queueTimeoutMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquirePermit();
+        try {
+            return releasingOnClose(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquirePermit();
+        try {
+            return releasingOnClose(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void acquirePermit() throws SQLException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            logger.debug("Connection request rejected reason=concurrency_limit waitedMs={}", queueTimeoutMillis);
+            throw new SQLTransientConnectionException(
+                    "No database connection available within " + queueTimeoutMillis + "ms");
+        }
+    }
+
+    // The permit goes back exactly once, when the caller closes (returns) the connection
+    private Connection releasingOnClose(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "close":
+                            try {
+                                connection.close();
+                            } finally {
+                                if (released.compareAndSet(false, true)) {
+                                    permits.release();
+                                }
+                            }
+                            return null;
+                        default:
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                });
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.qr_menu.configurations;
+
+import com.example.qr_menu.services.MenuFilterService;
+import com.example.qr_menu.services.MenuSnapshotService;
+import com.example.qr_menu.services.ProductSearchService;
+import com.example.qr_menu.services.QRCodeCacheService;
+import com.example.qr_menu.services.RestaurantAccessService;
+import com.example.qr_menu.utils.CacheStats;
+import com.example.qr_menu.utils.JwtTokenUtil;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Publishes the hit/miss counters of the in-process caches as
+ * {@code cache.gets{cache,result}} and {@code cache.hit.ratio{cache}}.
+ * HTTP, JVM and Hikari pool meters come from Spring Boot's actuator auto-configuration.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder cacheMetrics(QRCodeCacheService qrCodeCacheService,
+                                    MenuSnapshotService menuSnapshotService,
+                                    MenuFilterService menuFilterService,
+                                    ProductSearchService productSearchService,
+                                    RestaurantAccessService restaurantAccessService,
+                                    JwtTokenUtil jwtTokenUtil) {
+        return registry -> {
+            bind(registry, "qrcode", qrCodeCacheService.getStats());
+            bind(registry, "menu-snapshot", menuSnapshotService.getStats());
+            bind(registry, "menu-filter", menuFilterService.getStats());
+            bind(registry, "product-search", productSearchService.getStats());
+            bind(registry, "restaurant-access", restaurantAccessService.getStats());
+            bind(registry, "jwt-claims", jwtTokenUtil.getClaimsCacheStats());
+        };
+    }
+
+    private static void bind(MeterRegistry registry, String cache, CacheStats stats) {
+        FunctionCounter.builder("cache.gets", stats, CacheStats::hitCount)
+                .tag("cache", cache)
+                .tag("result", "hit")
+                .description("Cache lookups that were answered from the cache")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", stats, CacheStats::missCount)
+                .tag("cache", cache)
+                .tag("result", "miss")
+                .description("Cache lookups that had to load the value")
+                .register(registry);
+        Gauge.builder("cache.hit.ratio", stats, CacheStats::hitRatio)
+                .tag("cache", cache)
+                .description("Share of lookups answered from the cache since startup")
+                .register(registry);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.qr_menu.configurations;
 
 import com.example.qr_menu.security.JwtRequestFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -31,6 +32,9 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .cors(Customizer.withDefaults())
                 .authorizeHttpRequests(auth -> auth
+                        // Async dispatches (streamed responses) were already authorized on the original request
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // Public endpoints (no authentication required)
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/accounts/register", "/api/accounts/login", "/api/accounts/validate", "/api/accounts/current").permitAll()
@@ -51,6 +55,7 @@ public class SecurityConfig {
                         // Public API endpoints
                         .requestMatchers(HttpMethod.GET, "/api/products/menu/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/menus/restaurant/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/restaurants/{id}/search").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/menus/{id}/qrcode").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/menus/**").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/menus/**").hasAnyRole("ADMIN", "USER", "MANAGER", "COMANAGER")
@@ -76,6 +81,7 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.POST, "/api/menus/{id}/image").hasAnyRole("ADMIN", "USER", "MANAGER")
                         .requestMatchers(HttpMethod.POST, "/api/menus").hasAnyRole("ADMIN", "USER", "MANAGER")
                         .requestMatchers(HttpMethod.POST, "/api/qrcode/generate").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/qrcode/batch").hasAnyRole("ADMIN", "MANAGER", "COMANAGER")
 
                         
                         // Account management endpoints
@@ -90,12 +96,21 @@ public class SecurityConfig {
                         // Cart endpoints - allow all authenticated users
                         .requestMatchers("/api/cart/**").authenticated()
                         
+                        // Live order feed - restaurant staff only
+                        .requestMatchers(HttpMethod.GET, "/api/orders/restaurant/*/stream").hasAnyRole("ADMIN", "MANAGER", "COMANAGER")
+
                         // Order endpoints - allow all authenticated users
                         .requestMatchers("/api/orders/**").authenticated()
 
                         // Restaurant management endpoints - let the @PreAuthorize annotations handle these
                         .requestMatchers("/api/restaurants/**").authenticated()
                         
+                        // Health is public for load balancers; metrics and the Prometheus scrape
+                        // need an admin token. No loopback exemption: behind a reverse proxy on the
+                        // same host every request would arrive from 127.0.0.1
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+
                         // Require authentication for all other requests
                         .anyRequest().authenticated()
                 )
@@ -0,0 +1,37 @@
+package com.example.qr_menu.configurations;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Active only when {@code spring.threads.virtual.enabled=true} on a Java 21+ runtime.
+ * Spring Boot then runs Tomcat requests, {@code @Async} and scheduled work on virtual
+ * threads; this adds the guard that keeps such request spikes from piling up on the
+ * connection pool, by wrapping the DataSource in a {@link ConnectionLimitingDataSource}.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment environment) {
+        int poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+        int maxConnections = environment.getProperty("virtual-threads.max-concurrent-connections", Integer.class, poolSize);
+        long queueTimeoutMillis = environment.getProperty("virtual-threads.queue-timeout-ms", Long.class, 2000L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionLimitingDataSource)) {
+                    return new ConnectionLimitingDataSource(dataSource, maxConnections, queueTimeoutMillis);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.qr_menu.configurations;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.web.config.EnableSpringDataWebSupport;
 
@@ -11,10 +12,13 @@ import java.nio.file.Paths;
 @EnableSpringDataWebSupport(pageSerializationMode = EnableSpringDataWebSupport.PageSerializationMode.VIA_DTO)
 public class WebConfig implements WebMvcConfigurer {
 
+    @Value("${uploads.dir:uploads}")
+    private String uploadsDir;
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         // Get absolute path to uploads folder
-        String uploadPath = Paths.get("uploads").toAbsolutePath().normalize().toString();
+        String uploadPath = Paths.get(uploadsDir).toAbsolutePath().normalize().toString();
         System.out.println("Configured upload path: " + uploadPath);
         
         // Map /uploads/** URL to the physical uploads directory
@@ -4,8 +4,11 @@ import com.example.qr_menu.dto.AccountDTO;
 import com.example.qr_menu.dto.LoginDTO;
 import com.example.qr_menu.dto.ChangePasswordDTO;
 import com.example.qr_menu.entities.Account;
+import com.example.qr_menu.exceptions.InvalidUploadException;
 import com.example.qr_menu.exceptions.ResourceNotFoundException;
+import com.example.qr_menu.security.TokenRevocationService;
 import com.example.qr_menu.services.AccountService;
+import com.example.qr_menu.services.OrderService;
 import com.example.qr_menu.utils.JwtTokenUtil;
 import org.springframework.data.domain.Page;
 
@@ -26,11 +29,16 @@ public class AccountController {
 
     private final AccountService accountService;
     private final JwtTokenUtil jwtTokenUtil;
+    private final OrderService orderService;
+    private final TokenRevocationService tokenRevocationService;
 
     @Autowired
-    public AccountController(AccountService accountService, JwtTokenUtil jwtTokenUtil) {
+    public AccountController(AccountService accountService, JwtTokenUtil jwtTokenUtil, OrderService orderService,
+                             TokenRevocationService tokenRevocationService) {
         this.accountService = accountService;
         this.jwtTokenUtil = jwtTokenUtil;
+        this.orderService = orderService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     /**
@@ -156,6 +164,8 @@ public class AccountController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         } catch (SecurityException e) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (InvalidUploadException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to upload profile picture");
         }
@@ -167,8 +177,8 @@ public class AccountController {
             // 1. Извличаме самия JWT без "Bearer "
             String token = authorizationHeader.replace("Bearer ", "");
 
-            // 2. Проверяваме дали е валиден
-            if (!jwtTokenUtil.validateToken(token)) {
+            // 2. Проверяваме дали е валиден и не е отменен (смяна на роля, изтрит акаунт)
+            if (!jwtTokenUtil.validateToken(token) || tokenRevocationService.isRevoked(jwtTokenUtil.getAllClaimsFromToken(token))) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token validation failed");
             }
 
@@ -203,7 +213,7 @@ public class AccountController {
             String token = authorizationHeader.replace("Bearer ", "");
             
             // Validate token
-            if (!jwtTokenUtil.validateToken(token)) {
+            if (!jwtTokenUtil.validateToken(token) || tokenRevocationService.isRevoked(jwtTokenUtil.getAllClaimsFromToken(token))) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication failed");
             }
             
@@ -431,38 +441,8 @@ public class AccountController {
                         ? org.springframework.data.domain.Sort.by(sortBy).ascending() 
                         : org.springframework.data.domain.Sort.by(sortBy).descending());
             
-            // Call the OrderRepository directly to get the orders
-            Page<com.example.qr_menu.entities.Order> orders = accountService.getOrdersByAccountId(accountId, pageable);
-            
-            // Convert to DTOs
-            Page<com.example.qr_menu.dto.OrderDTO> orderDTOs = orders.map(order -> {
-                com.example.qr_menu.dto.OrderDTO orderDTO = com.example.qr_menu.dto.OrderDTO.builder()
-                        .id(order.getId())
-                        .accountId(order.getAccount().getId())
-                        .restorantId(order.getRestorant().getId())
-                        .restorantName(order.getRestorant().getRestorantName())
-                        .orderStatus(order.getOrderStatus())
-                        .orderTime(order.getOrderTime())
-                        .totalPrice(order.getTotalPrice())
-                        .build();
-                
-                // Get order products - you'll need to inject the OrderProductRepository
-                List<com.example.qr_menu.entities.OrderProduct> orderProducts = 
-                    accountService.getOrderProductsByOrderId(order.getId());
-                    
-                List<com.example.qr_menu.dto.OrderDTO.ProductOrderDTO> productDTOs = orderProducts.stream()
-                        .map(op -> com.example.qr_menu.dto.OrderDTO.ProductOrderDTO.builder()
-                                .productId(op.getProduct().getId())
-                                .productName(op.getProduct().getProductName())
-                                .productImage(op.getProduct().getProductImage())
-                                .quantity(op.getQuantity())
-                                .productPriceAtOrder(op.getProduct().getProductPrice())
-                                .build())
-                        .collect(java.util.stream.Collectors.toList());
-                
-                orderDTO.setProducts(productDTOs);
-                return orderDTO;
-            });
+            // Orders and their line items are loaded with two queries per page
+            Page<com.example.qr_menu.dto.OrderDTO> orderDTOs = orderService.getOrdersByAccountId(accountId, pageable);
             
             return ResponseEntity.ok(orderDTOs);
             
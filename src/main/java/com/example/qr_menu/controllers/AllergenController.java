@@ -2,9 +2,11 @@ package com.example.qr_menu.controllers;
 
 import com.example.qr_menu.dto.AllergenDTO;
 import com.example.qr_menu.entities.Allergen;
+import com.example.qr_menu.events.MenuChangedEvent;
 import com.example.qr_menu.exceptions.ResourceNotFoundException;
 import com.example.qr_menu.repositories.AllergenRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
@@ -17,6 +19,9 @@ public class AllergenController {
     @Autowired
     private AllergenRepository allergenRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * GET /api/allergens
      * Връща списък с всички алергени.
@@ -76,6 +81,8 @@ public class AllergenController {
         allergen.setAllergenName(allergenDTO.getAllergenName());
 
         Allergen updated = allergenRepository.save(allergen);
+        // Името на алергена присъства в кешираните менюта
+        eventPublisher.publishEvent(MenuChangedEvent.allMenus());
 
         AllergenDTO result = new AllergenDTO(updated.getId(), updated.getAllergenName());
         return ResponseEntity.ok(result);
@@ -91,6 +98,7 @@ public class AllergenController {
                 .orElseThrow(() -> new ResourceNotFoundException("Allergen not found, ID = " + id));
 
         allergenRepository.delete(allergen);
+        eventPublisher.publishEvent(MenuChangedEvent.allMenus());
         return ResponseEntity.noContent().build();
     }
 }
@@ -2,12 +2,19 @@ package com.example.qr_menu.controllers;
 
 import com.example.qr_menu.dto.CategoryDTO;
 import com.example.qr_menu.dto.MenuDTO;
+import com.example.qr_menu.dto.MenuProductFilterDTO;
+import com.example.qr_menu.exceptions.InvalidUploadException;
+import com.example.qr_menu.services.MenuFilterService;
 import com.example.qr_menu.services.MenuService;
+import com.example.qr_menu.services.MenuSnapshotService;
+import com.example.qr_menu.services.MenuVersionService;
+import com.example.qr_menu.services.QRCodeCacheService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -15,16 +22,24 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/menus")
 public class MenuController {
 
     private final MenuService menuService;
+    private final MenuSnapshotService menuSnapshotService;
+    private final MenuVersionService menuVersionService;
+    private final MenuFilterService menuFilterService;
 
     @Autowired
-    public MenuController(MenuService menuService) {
+    public MenuController(MenuService menuService, MenuSnapshotService menuSnapshotService,
+                          MenuVersionService menuVersionService, MenuFilterService menuFilterService) {
         this.menuService = menuService;
+        this.menuSnapshotService = menuSnapshotService;
+        this.menuVersionService = menuVersionService;
+        this.menuFilterService = menuFilterService;
     }
 
     @PostMapping("/{id}/image")
@@ -37,6 +52,8 @@ public class MenuController {
                 "menuImage", menuImagePath,
                 "message", "Menu image uploaded successfully"
             ));
+        } catch (InvalidUploadException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (IOException e) {
             return ResponseEntity
                     .status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -82,14 +99,61 @@ public class MenuController {
     }
 
     @GetMapping("/restaurant/{restorantId}")
-    public ResponseEntity<List<MenuDTO>> getMenusByRestaurantId(@PathVariable Long restorantId) {
-        List<MenuDTO> menus = menuService.getMenusByRestaurantId(restorantId);
-        return new ResponseEntity<>(menus, HttpStatus.OK);
+    public ResponseEntity<List<MenuDTO>> getMenusByRestaurantId(@PathVariable Long restorantId, WebRequest request) {
+        return menuVersionService.conditional(menuVersionService.restaurantStamp(restorantId), "menus", request,
+                () -> menuService.getMenusByRestaurantId(restorantId));
     }
     @GetMapping("/{id}")
-    public ResponseEntity<MenuDTO> getMenuById(@PathVariable Long id) {
-        MenuDTO menu = menuService.getMenuById(id);
-        return ResponseEntity.ok(menu);
+    public ResponseEntity<MenuDTO> getMenuById(@PathVariable Long id, WebRequest request) {
+        return menuVersionService.conditional(menuVersionService.menuStamp(id), "menu", request,
+                () -> menuService.getMenuById(id));
+    }
+
+
+    /**
+     * Returns the whole public menu (menu, categories, products and allergens) as one
+     * pre-serialized JSON document. Served from memory until the menu is changed.
+     */
+    @GetMapping("/{id}/snapshot")
+    public ResponseEntity<byte[]> getMenuSnapshot(@PathVariable Long id, WebRequest request) {
+        MenuSnapshotService.MenuSnapshot snapshot = menuSnapshotService.getSnapshot(id);
+        if (request.checkNotModified(snapshot.getEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(menuVersionService.getCacheControl())
+                .eTag(snapshot.getEtag())
+                .body(snapshot.getJson());
+    }
+
+    /**
+     * Guest filter over a menu, e.g. ?excludeAllergens=1,7&maxPrice=15
+     * Answered from an in-memory index; the response also carries allergen facet counts.
+     */
+    @GetMapping("/{id}/products")
+    public ResponseEntity<MenuProductFilterDTO> filterMenuProducts(
+            @PathVariable Long id,
+            @RequestParam(value = "excludeAllergens", required = false) List<Long> excludeAllergens,
+            @RequestParam(value = "maxPrice", required = false) Double maxPrice,
+            WebRequest request) {
+        return menuVersionService.conditional(menuVersionService.menuStamp(id),
+                filterRepresentation(excludeAllergens, maxPrice), request,
+                () -> menuFilterService.filterProducts(id, excludeAllergens, maxPrice));
+    }
+
+    // ?excludeAllergens=7,1,7&maxPrice=15 and ?maxPrice=15.0&excludeAllergens=1,7 are the same filter
+    private static String filterRepresentation(List<Long> excludeAllergens, Double maxPrice) {
+        StringBuilder representation = new StringBuilder("filter");
+        if (excludeAllergens != null && !excludeAllergens.isEmpty()) {
+            representation.append("-x");
+            excludeAllergens.stream().filter(Objects::nonNull).sorted().distinct()
+                    .forEach(allergenId -> representation.append('.').append(allergenId));
+        }
+        if (maxPrice != null) {
+            representation.append("-p").append(maxPrice);
+        }
+        return representation.toString();
     }
 
 
@@ -145,23 +209,23 @@ public class MenuController {
     }
 
     @GetMapping("/{id}/qrcode")
-    public ResponseEntity<byte[]> getQRCode(@PathVariable Long id) {
-        System.out.println("Fetching QR code for menu ID: " + id);
-        byte[] qrCode = menuService.generateQRCodeForMenu(id);
+    public ResponseEntity<byte[]> getQRCode(@PathVariable Long id, WebRequest request) {
+        QRCodeCacheService.CachedQRCode qrCode = menuService.generateQRCodeForMenu(id);
 
-        if (qrCode == null) {
-            System.out.println("QR code not found for menu ID: " + id);
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        if (request.checkNotModified(qrCode.getEtag())) {
+            return null;
         }
 
         return ResponseEntity.ok()
                 .contentType(MediaType.IMAGE_PNG)
-                .body(qrCode);
+                .eTag(qrCode.getEtag())
+                .body(qrCode.getBytes());
     }
 
     @GetMapping("/{menuId}/categories")
-    public List<CategoryDTO> getCategoriesByMenu(@PathVariable Long menuId) {
-        return menuService.getCategoriesByMenu(menuId);
+    public ResponseEntity<List<CategoryDTO>> getCategoriesByMenu(@PathVariable Long menuId, WebRequest request) {
+        return menuVersionService.conditional(menuVersionService.menuStamp(menuId), "categories", request,
+                () -> menuService.getCategoriesByMenu(menuId));
     }
 
     @PutMapping("/{id}/text-color")
@@ -181,11 +245,13 @@ public class MenuController {
     }
 
     @PostMapping("/{id}/default-product-image")
-    public ResponseEntity<MenuDTO> uploadDefaultProductImage(@PathVariable("id") Long menuId,
-                                                          @RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> uploadDefaultProductImage(@PathVariable("id") Long menuId,
+                                                    @RequestParam("file") MultipartFile file) {
         try {
             MenuDTO updatedMenu = menuService.uploadDefaultProductImage(menuId, file);
             return ResponseEntity.ok(updatedMenu);
+        } catch (InvalidUploadException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             throw new RuntimeException("Failed to upload default product image: " + e.getMessage(), e);
         }
@@ -3,6 +3,7 @@ package com.example.qr_menu.controllers;
 import com.example.qr_menu.dto.OrderDTO;
 import com.example.qr_menu.entities.Order;
 import com.example.qr_menu.repositories.OrderRepository;
+import com.example.qr_menu.services.OrderService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,9 +17,11 @@ import java.util.Optional;
 public class OrderDebugController {
 
     private final OrderRepository orderRepository;
+    private final OrderService orderService;
     
-    public OrderDebugController(OrderRepository orderRepository) {
+    public OrderDebugController(OrderRepository orderRepository, OrderService orderService) {
         this.orderRepository = orderRepository;
+        this.orderService = orderService;
     }
     
     @GetMapping("/status-values")
@@ -55,8 +58,7 @@ public class OrderDebugController {
                 System.out.println("[DEBUG] Status converted successfully to: " + orderStatus);
                 
                 // Update order status
-                order.setOrderStatus(orderStatus);
-                Order savedOrder = orderRepository.save(order);
+                Order savedOrder = orderService.updateOrderStatus(orderId, orderStatus);
                 System.out.println("[DEBUG] Order status updated successfully to: " + savedOrder.getOrderStatus());
                 
                 // Return simple response
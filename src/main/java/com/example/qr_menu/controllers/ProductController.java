@@ -3,21 +3,23 @@ package com.example.qr_menu.controllers;
 import com.example.qr_menu.dto.ProductDTO;
 import com.example.qr_menu.entities.Menu;
 import com.example.qr_menu.entities.Product;
+import com.example.qr_menu.exceptions.InvalidUploadException;
 import com.example.qr_menu.exceptions.ResourceNotFoundException;
 import com.example.qr_menu.repositories.CategoryRepository;
+import com.example.qr_menu.services.ImageStorageService;
+import com.example.qr_menu.services.MenuVersionService;
 import com.example.qr_menu.services.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/products")
@@ -29,11 +31,17 @@ public class ProductController {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private MenuVersionService menuVersionService;
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
     // Продукти според меню
     @GetMapping("/menu/{menuId}")
-    public ResponseEntity<List<ProductDTO>> getProductsByMenuId(@PathVariable Long menuId) {
-        List<ProductDTO> products = productService.getProductsByMenuId(menuId);
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<ProductDTO>> getProductsByMenuId(@PathVariable Long menuId, WebRequest request) {
+        return menuVersionService.conditional(menuVersionService.menuStamp(menuId), "products", request,
+                () -> productService.getProductsByMenuId(menuId));
     }
 
     /**
@@ -48,7 +56,7 @@ public class ProductController {
 
     /**
      * 2) Създава продукт чрез multipart/form-data.
-     *    Файлът се записва в папка "uploads/", а в базата се пази само пътят ("/uploads/filename").
+     *    Файлът се записва в папка "uploads/products/", а в базата се пази само пътят.
      *    Ако не качите файл, ще се сложи "default_product.png".
      */
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -83,7 +91,7 @@ public class ProductController {
                 dto.setProductImage("http://localhost:8080/uploads/" + menu.getId() + "/default_product.png");
             }
         } else {
-            // Ако има качен файл, записваме го в папка "uploads/"
+            // Ако има качен файл, записваме го в папка "uploads/products/"
             String savedPath = saveImage(productImage);
             dto.setProductImage(savedPath);
         }
@@ -131,15 +139,12 @@ public class ProductController {
     }
 
     /**
-     * Записва качения файл в папка "uploads/" и връща относителния път
-     * ("/uploads/filename"), който да се пази в базата.
+     * Записва качения файл в "uploads/products/" под име по съдържанието му и връща
+     * относителния път ("/uploads/products/<hash>.<ext>"), който да се пази в базата.
      */
     private String saveImage(MultipartFile file) {
         try {
-            byte[] bytes = file.getBytes();
-            Path path = Paths.get("uploads/" + file.getOriginalFilename());
-            Files.write(path, bytes);
-            return "/uploads/" + file.getOriginalFilename();
+            return imageStorageService.storeImage(file, "products");
         } catch (IOException e) {
             throw new RuntimeException("Неуспешно качване на снимка", e);
         }
@@ -160,9 +165,10 @@ public class ProductController {
     // }
 
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<List<ProductDTO>> getProductsByCategoryId(@PathVariable Long categoryId) {
-        List<ProductDTO> products = productService.getProductsByCategoryId(categoryId);
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<ProductDTO>> getProductsByCategoryId(@PathVariable Long categoryId, WebRequest request) {
+        return menuVersionService.conditional(menuVersionService.categoryStamp(categoryId),
+                "category" + categoryId + "-products", request,
+                () -> productService.getProductsByCategoryId(categoryId));
     }
 
     // Get single product by ID
@@ -204,4 +210,13 @@ public class ProductController {
         ProductDTO updatedProduct = productService.updateProduct(id, allergenUpdateDTO);
         return ResponseEntity.ok(updatedProduct);
     }
+
+    // Невалиден качен файл (празен или не е снимка)
+    @ExceptionHandler(InvalidUploadException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidUpload(InvalidUploadException e) {
+        return ResponseEntity.badRequest().body(Map.of(
+            "success", false,
+            "error", e.getMessage()
+        ));
+    }
 }
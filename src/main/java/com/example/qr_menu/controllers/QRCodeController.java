@@ -1,9 +1,15 @@
 package com.example.qr_menu.controllers;
 
+import com.example.qr_menu.dto.QRCodeBatchRequestDTO;
+import com.example.qr_menu.services.QRCodeBatchService;
+import com.example.qr_menu.services.QRCodeCacheService;
 import com.example.qr_menu.services.QRCodeService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.Map;
 
@@ -14,6 +20,9 @@ public class QRCodeController {
     @Autowired
     private QRCodeService qrCodeService;
 
+    @Autowired
+    private QRCodeBatchService qrCodeBatchService;
+
     @PostMapping("/generate")
     public ResponseEntity<?> generateQRCode(@RequestBody Map<String, Object> request) {
         try {
@@ -23,6 +32,20 @@ public class QRCodeController {
             Integer margin = (Integer) request.getOrDefault("margin", 1);
             String errorCorrectionLevel = (String) request.getOrDefault("errorCorrectionLevel", "H");
             String type = (String) request.getOrDefault("type", "text");
+            if (text == null || text.isEmpty()) {
+                throw new IllegalArgumentException("Text must not be empty");
+            }
+            // Anonymous callers: bound the work and what ends up in the QR code cache
+            QRCodeService.validateOptions(size, margin, errorCorrectionLevel);
+
+            // png/svg/raw return the image bytes directly, anything else keeps the JSON data URI
+            if (QRCodeService.isBinaryFormat(format)) {
+                QRCodeCacheService.CachedQRCode image = qrCodeService.renderQRCode(text, format, size, margin, errorCorrectionLevel);
+                return ResponseEntity.ok()
+                        .contentType(MediaType.parseMediaType(image.getContentType()))
+                        .eTag(image.getEtag())
+                        .body(image.getBytes());
+            }
 
             // Generate QR code
             String qrCode = qrCodeService.generateQRCode(text, format, size, margin, errorCorrectionLevel, type);
@@ -38,4 +61,26 @@ public class QRCodeController {
             ));
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Generates a PNG QR code for every item and streams them back as one ZIP archive.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<StreamingResponseBody> generateQRCodeBatch(@RequestBody QRCodeBatchRequestDTO request) {
+        qrCodeBatchService.validate(request);
+
+        StreamingResponseBody body = outputStream -> qrCodeBatchService.writeZip(request, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"qr-codes.zip\"")
+                .body(body);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidBatch(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of(
+            "success", false,
+            "error", e.getMessage()
+        ));
+    }
+}
@@ -2,6 +2,8 @@ package com.example.qr_menu.controllers;
 
 import com.example.qr_menu.dto.PopularProductDTO;
 import com.example.qr_menu.services.PopularProductsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -9,7 +11,6 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.logging.Logger;
 
 /**
  * Controller for restaurant analytics endpoints
@@ -19,7 +20,7 @@ import java.util.logging.Logger;
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class RestaurantAnalyticsController {
 
-    private static final Logger logger = Logger.getLogger(RestaurantAnalyticsController.class.getName());
+    private static final Logger logger = LoggerFactory.getLogger(RestaurantAnalyticsController.class);
     private final PopularProductsService popularProductsService;
 
     @Autowired
@@ -39,19 +40,14 @@ public class RestaurantAnalyticsController {
             @PathVariable Long restaurantId,
             @RequestParam(required = false) Integer limit) {
         
-        logger.info("Received request for popular products for restaurant ID: " + restaurantId);
-        
         try {
             List<PopularProductDTO> popularProducts = 
                 popularProductsService.getPopularProductsByRestaurantId(restaurantId, limit);
             
-            logger.info("Returning " + popularProducts.size() + " popular products");
+            logger.debug("Popular products restaurantId={} count={}", restaurantId, popularProducts.size());
             return ResponseEntity.ok(popularProducts);
         } catch (Exception e) {
-            logger.severe("Error processing popular products request: " + e.getMessage());
-            if (e.getCause() != null) {
-                logger.severe("Caused by: " + e.getCause().getMessage());
-            }
+            logger.error("Error processing popular products request restaurantId={}", restaurantId, e);
             
             // Return empty list on error
             return ResponseEntity.ok(new ArrayList<>());
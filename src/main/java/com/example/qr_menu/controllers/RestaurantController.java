@@ -1,7 +1,9 @@
 package com.example.qr_menu.controllers;
 
 import com.example.qr_menu.dto.MenuDTO;
+import com.example.qr_menu.dto.ProductSearchResultDTO;
 import com.example.qr_menu.dto.RestaurantDTO;
+import com.example.qr_menu.services.ProductSearchService;
 import com.example.qr_menu.services.RestaurantService;
 import com.example.qr_menu.utils.JwtTokenUtil;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,11 +22,14 @@ public class RestaurantController {
 
     private final RestaurantService restaurantService;
     private final JwtTokenUtil jwtTokenUtil;
+    private final ProductSearchService productSearchService;
 
     @Autowired
-    public RestaurantController(RestaurantService restaurantService, JwtTokenUtil jwtTokenUtil) {
+    public RestaurantController(RestaurantService restaurantService, JwtTokenUtil jwtTokenUtil,
+                                ProductSearchService productSearchService) {
         this.restaurantService = restaurantService;
         this.jwtTokenUtil = jwtTokenUtil;
+        this.productSearchService = productSearchService;
     }
 
     @PostMapping
@@ -49,7 +54,7 @@ public class RestaurantController {
     }
 
     @PutMapping("/{id}")
-    @PreAuthorize("hasAnyRole('ADMIN') or (hasRole('MANAGER') and @restaurantAccessService.canManageRestaurant(authentication.name, #id))")
+    @PreAuthorize("hasAnyRole('ADMIN') or (hasRole('MANAGER') and @restaurantAccessService.canManageRestaurant(authentication, #id))")
     public ResponseEntity<String> updateRestaurant(@PathVariable Long id, @RequestBody RestaurantDTO restaurantDTO) {
         restaurantService.updateRestaurant(id, restaurantDTO);
         return new ResponseEntity<>("Restaurant updated successfully", HttpStatus.OK);
@@ -63,7 +68,7 @@ public class RestaurantController {
     }
 
     @DeleteMapping("/delete/{id}")
-    @PreAuthorize("hasRole('ADMIN') or (hasAnyRole('MANAGER', 'COMANAGER') and @restaurantAccessService.canManageRestaurant(authentication.name, #id))")
+    @PreAuthorize("hasRole('ADMIN') or (hasAnyRole('MANAGER', 'COMANAGER') and @restaurantAccessService.canManageRestaurant(authentication, #id))")
     public ResponseEntity<String> deleteRestaurant(@PathVariable Long id) {
         restaurantService.deleteRestaurant(id);
         return new ResponseEntity<>("Restaurant deleted successfully", HttpStatus.OK);
@@ -91,6 +96,18 @@ public class RestaurantController {
         List<MenuDTO> menus = restaurantService.getMenusByRestaurant(restaurantId);
         return ResponseEntity.ok(menus);
     }
+
+    /**
+     * Public type-ahead search over the products of all the restaurant's menus, e.g. ?q=кафе
+     * Answered from in-memory indexes; see ProductSearchService.
+     */
+    @GetMapping("/{id}/search")
+    public ResponseEntity<ProductSearchResultDTO> searchProducts(
+            @PathVariable Long id,
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return ResponseEntity.ok(productSearchService.search(id, query, limit));
+    }
     
     /**
      * Get all restaurants managed by the authenticated manager.
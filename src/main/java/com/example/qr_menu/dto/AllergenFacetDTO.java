@@ -0,0 +1,14 @@
+package com.example.qr_menu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AllergenFacetDTO {
+    private Long allergenId;
+    private String allergenName;
+    private Integer productCount;
+}
@@ -21,7 +21,8 @@ public class MenuDTO {
     private Long restaurantId;
     private String menuUrl;
     private String menuImage;
-    private byte[] qrCodeImage;
+    // Where the QR code PNG is served; the image itself is not part of menu payloads
+    private String qrCodeUrl;
     private String defaultProductImage;
     private String textColor;
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.example.qr_menu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MenuProductFilterDTO {
+    private Long menuId;
+    private Integer totalProducts;
+    private Integer matchedProducts;
+    private List<ProductDTO> products;
+    // How many products of the whole menu contain each allergen
+    private List<AllergenFacetDTO> facets;
+}
@@ -0,0 +1,19 @@
+package com.example.qr_menu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MenuSnapshotDTO {
+    private Long version;
+    private MenuDTO menu;
+    private List<CategoryDTO> categories;
+    private List<ProductDTO> products;
+}
@@ -0,0 +1,23 @@
+package com.example.qr_menu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated order listing, newest first. There is no total count;
+ * pass nextCursor back as ?cursor= to get the following page (null on the last page).
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderSliceDTO {
+    private List<OrderDTO> content;
+    private Integer size;
+    private Boolean hasNext;
+    private String nextCursor;
+}
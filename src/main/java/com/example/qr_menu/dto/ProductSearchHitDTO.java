@@ -0,0 +1,26 @@
+package com.example.qr_menu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSearchHitDTO {
+    private Long productId;
+    private Long menuId;
+    private Long categoryId;
+    private String productName;
+    private String productInfo;
+    private String categoryName;
+    private Double productPrice;
+    private String productImage;
+    private Double score;
+    // HTML-escaped text with matching words wrapped in <mark>
+    private String highlightedName;
+    private String highlightedInfo;
+    private String highlightedCategory;
+}
@@ -0,0 +1,20 @@
+package com.example.qr_menu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSearchResultDTO {
+    private Long restaurantId;
+    private String query;
+    // Number of matching products; hits holds at most the requested limit
+    private Integer total;
+    private List<ProductSearchHitDTO> hits;
+}
@@ -0,0 +1,32 @@
+package com.example.qr_menu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class QRCodeBatchRequestDTO {
+    private List<Item> items;
+    @Builder.Default
+    private Integer size = 300;
+    @Builder.Default
+    private Integer margin = 1;
+    @Builder.Default
+    private String errorCorrectionLevel = "H";
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Item {
+        private String text;
+        // Name of the entry inside the ZIP, e.g. "table-12"; generated when missing
+        private String fileName;
+    }
+}
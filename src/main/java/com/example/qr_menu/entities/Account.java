@@ -16,7 +16,13 @@ import java.util.HashSet;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "account")
+@Table(name = "account",
+       indexes = {
+           @Index(name = "idx_account_mail_address", columnList = "mail_address"),
+           @Index(name = "idx_account_account_name", columnList = "account_name"),
+           @Index(name = "idx_account_account_type", columnList = "account_type"),
+           @Index(name = "idx_account_token_version", columnList = "token_version")
+       })
 public class Account {
 
     @Id
@@ -57,6 +63,11 @@ public class Account {
     @Column(name = "updated_by")
     private Long updatedBy;
 
+    // Tokens carry the version they were issued with; bumping it revokes all older tokens
+    @Builder.Default
+    @Column(name = "token_version", nullable = false)
+    private Integer tokenVersion = 0;
+
     // One Account can have many Restaurants
     @OneToMany(mappedBy = "account", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<Restorant> restorants;
@@ -12,7 +12,7 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "favorites", 
        indexes = {
-           @Index(name = "idx_favorites_account_product", columnList = "account_id,product_id", unique = true)
+           @Index(name = "unique_account_product", columnList = "account_id,product_id", unique = true)
        })
 public class Favorite {
     @Id
@@ -11,7 +11,10 @@ import java.sql.Timestamp;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "manager_assignment")
+@Table(name = "manager_assignment",
+       indexes = {
+           @Index(name = "idx_manager_assignment_manager_restorant", columnList = "manager_id,restorant_id")
+       })
 public class ManagerAssignment {
 
     @Id
@@ -14,7 +14,10 @@ import java.util.List;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "menu")
+@Table(name = "menu",
+       indexes = {
+           @Index(name = "idx_restorant_id", columnList = "restorant_id")
+       })
 public class Menu {
 
     @Id
@@ -37,13 +40,14 @@ public class Menu {
     @JoinColumn(name = "restorant_id",nullable = false) // Foreign key column in Menu table
     private Restorant restorant;
 
+    // Bumped on every change guests can see (the menu, its categories and products) - see MenuVersionService
+    @Builder.Default
+    @Column(name = "content_version", nullable = false)
+    private Long contentVersion = 0L;
+
     @Column(name = "menu_url")
     private String menuUrl;
 
-    @Lob
-    @Column(name = "qr_code_image", columnDefinition = "BLOB")
-    private byte[] qrCodeImage;
-
     @Column(
             name = "menu_image",
             columnDefinition = "VARCHAR(255) DEFAULT 'default_menu.png'"
@@ -68,4 +72,11 @@ public class Menu {
 
     @OneToMany(mappedBy = "menu", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Category> categories;
+
+    @PrePersist
+    protected void onCreate() {
+        if (contentVersion == null || contentVersion == 0) {
+            contentVersion = System.currentTimeMillis();
+        }
+    }
 }
@@ -0,0 +1,37 @@
+package com.example.qr_menu.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+
+/**
+ * Rendered QR code PNG of a menu, keyed by the menu ID.
+ * Kept out of the menu table so menu fetches and listings never load the image;
+ * it is only read by the QR code endpoint (GET /api/menus/{id}/qrcode).
+ */
+@Entity
+@Getter
+@Setter
+@ToString(exclude = "image")
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "menu_qr_code")
+public class MenuQRCode {
+
+    @Id
+    @Column(name = "menu_id")
+    private Long menuId;
+
+    // The URL the image encodes, so a changed menu URL can be detected
+    @Column(name = "menu_url")
+    private String menuUrl;
+
+    @Lob
+    @Column(name = "image", nullable = false, columnDefinition = "MEDIUMBLOB")
+    private byte[] image;
+
+    @Column(name = "created_at", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createdAt;
+}
@@ -15,7 +15,12 @@ import java.util.Set;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "orders")
+@Table(name = "orders",
+       indexes = {
+           @Index(name = "idx_orders_restorant_time", columnList = "restorant_id,order_time,id"),
+           @Index(name = "idx_orders_account_time", columnList = "account_id,order_time,id"),
+           @Index(name = "idx_orders_time", columnList = "order_time,id")
+       })
 public class Order {
 
     @Id
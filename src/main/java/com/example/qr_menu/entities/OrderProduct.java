@@ -13,7 +13,10 @@ import java.util.Date;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "order_product")
+@Table(name = "order_product",
+       indexes = {
+           @Index(name = "idx_order_product_product_id", columnList = "product_id")
+       })
 public class OrderProduct {
 
     @EmbeddedId
@@ -32,6 +35,10 @@ public class OrderProduct {
     @Column(name = "quantity", nullable = false)
     private Integer quantity;
 
+    // Product price when the order was placed; null for lines created before it was recorded
+    @Column(name = "unit_price")
+    private Double unitPrice;
+
     @Column(name = "created_at")
     private Date createdAt;
 
@@ -16,7 +16,11 @@ import java.util.Set;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "products")
+@Table(name = "products",
+       indexes = {
+           @Index(name = "idx_menu_id", columnList = "menu_id"),
+           @Index(name = "idx_products_category_id", columnList = "category_id")
+       })
 public class Product {
 
     @Id
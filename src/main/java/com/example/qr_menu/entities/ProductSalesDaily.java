@@ -0,0 +1,53 @@
+package com.example.qr_menu.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Daily sales rollup per restaurant and product (quantity, revenue, number of orders).
+ * Rows are maintained with upserts by ProductSalesRollupService, never through JPA writes.
+ */
+@Entity
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "product_sales_daily",
+       indexes = {
+           @Index(name = "idx_product_sales_daily_day", columnList = "restorant_id,sales_day")
+       })
+public class ProductSalesDaily {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "quantity", nullable = false)
+    private Long quantity;
+
+    @Column(name = "revenue", nullable = false)
+    private Double revenue;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    @Embeddable
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements java.io.Serializable {
+
+        @Column(name = "restorant_id")
+        private Long restorantId;
+
+        @Column(name = "product_id")
+        private Long productId;
+
+        @Column(name = "sales_day")
+        private LocalDate salesDay;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.qr_menu.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * A deleted account whose tokens are rejected until {@code deniedUntil} (epoch millis).
+ * Rows are written and read by TokenRevocationService with plain JDBC, never through JPA writes.
+ */
+@Entity
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "revoked_account",
+       indexes = {
+           @Index(name = "idx_revoked_account_denied_until", columnList = "denied_until")
+       })
+public class RevokedAccount {
+
+    // No foreign key: the account row is gone
+    @Id
+    @Column(name = "account_id")
+    private Long accountId;
+
+    @Column(name = "denied_until", nullable = false)
+    private Long deniedUntil;
+}
@@ -0,0 +1,26 @@
+package com.example.qr_menu.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published after a write that changes what guests see for a menu
+ * (the menu itself, its categories or its products).
+ * A null menuId means the change can affect every menu (e.g. an allergen was renamed).
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class MenuChangedEvent {
+
+    private final Long menuId;
+
+    public static MenuChangedEvent allMenus() {
+        return new MenuChangedEvent(null);
+    }
+
+    public boolean affectsAllMenus() {
+        return menuId == null;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.qr_menu.events;
+
+import com.example.qr_menu.dto.OrderDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published when an order is placed or its status changes,
+ * so restaurant staff can be notified without polling the order list.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class OrderChangedEvent {
+
+    public enum Type {
+        ORDER_CREATED,
+        ORDER_STATUS_CHANGED
+    }
+
+    private final Type type;
+    private final Long restaurantId;
+    private final OrderDTO order;
+
+    public static OrderChangedEvent created(OrderDTO order) {
+        return new OrderChangedEvent(Type.ORDER_CREATED, order.getRestorantId(), order);
+    }
+
+    public static OrderChangedEvent statusChanged(OrderDTO order) {
+        return new OrderChangedEvent(Type.ORDER_STATUS_CHANGED, order.getRestorantId(), order);
+    }
+
+    /**
+     * Name used for the SSE "event:" field, e.g. "order-created".
+     */
+    public String eventName() {
+        return type == Type.ORDER_CREATED ? "order-created" : "order-status-changed";
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.qr_menu.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published after a write that changes which restaurants an account may manage
+ * (an assignment, a new restaurant, a role change).
+ * A null accountId means the change can affect every account (e.g. a restaurant was deleted).
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class RestaurantAccessChangedEvent {
+
+    private final Long accountId;
+
+    public static RestaurantAccessChangedEvent allAccounts() {
+        return new RestaurantAccessChangedEvent(null);
+    }
+
+    public boolean affectsAllAccounts() {
+        return accountId == null;
+    }
+}
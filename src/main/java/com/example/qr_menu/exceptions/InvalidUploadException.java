@@ -0,0 +1,11 @@
+package com.example.qr_menu.exceptions;
+
+/**
+ * Thrown when an uploaded file is rejected (empty, not an accepted image type, bad target directory).
+ * Controllers answer it with 400 Bad Request.
+ */
+public class InvalidUploadException extends RuntimeException {
+    public InvalidUploadException(String message) {
+        super(message);
+    }
+}
@@ -12,9 +12,23 @@ import java.util.Optional;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Long> {
-    Optional<Account> findByAccountNameOrMailAddress(String accountName, String mailAddress);
+    /**
+     * Looks the account up by e-mail, then by name. Two single-column lookups, so each one is served
+     * by its own index instead of a scan over both columns.
+     */
+    default Optional<Account> findByAccountNameOrMailAddress(String accountName, String mailAddress) {
+        Optional<Account> byMail = mailAddress == null ? Optional.empty() : findByMailAddress(mailAddress);
+        return byMail.isPresent() || accountName == null ? byMail : findByAccountName(accountName);
+    }
+
+    default boolean existsByAccountNameOrMailAddress(String accountName, String mailAddress) {
+        return (mailAddress != null && existsByMailAddress(mailAddress))
+                || (accountName != null && existsByAccountName(accountName));
+    }
+
+    Optional<Account> findByAccountName(String accountName);
 
-    boolean existsByAccountNameOrMailAddress(String accountName, String mailAddress);
+    boolean existsByAccountName(String accountName);
 
     // Default pagination support
     Page<Account> findAll(Pageable pageable);
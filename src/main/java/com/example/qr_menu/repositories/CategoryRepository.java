@@ -3,9 +3,16 @@ package com.example.qr_menu.repositories;
 import com.example.qr_menu.entities.Category;
 import com.example.qr_menu.entities.Menu;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.List;
+import java.util.Optional;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     List<Category> findByMenuId(Long menuId);
     List<Category> findByMenu(Menu menu);
+
+    @Query("SELECT c.menu.id FROM Category c WHERE c.id = :id")
+    Optional<Long> findMenuIdById(@Param("id") Long id);
 }
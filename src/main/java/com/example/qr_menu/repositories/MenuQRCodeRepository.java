@@ -0,0 +1,7 @@
+package com.example.qr_menu.repositories;
+
+import com.example.qr_menu.entities.MenuQRCode;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface MenuQRCodeRepository extends JpaRepository<MenuQRCode, Long> {
+}
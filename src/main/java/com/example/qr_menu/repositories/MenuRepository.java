@@ -3,11 +3,14 @@ package com.example.qr_menu.repositories;
 import com.example.qr_menu.entities.Menu;
 import com.example.qr_menu.entities.Restorant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface MenuRepository extends JpaRepository<Menu, Long> {
@@ -22,4 +25,25 @@ public interface MenuRepository extends JpaRepository<Menu, Long> {
 
     @Query("SELECT m FROM Menu m JOIN FETCH m.restorant WHERE m.restorant.id = :restorantId")
     List<Menu> findByRestorantIdWithRestorant(@Param("restorantId") Long restorantId);
+
+    @Query("SELECT m.id FROM Menu m WHERE m.restorant.id = :restorantId ORDER BY m.id")
+    List<Long> findIdsByRestorantId(@Param("restorantId") Long restorantId);
+
+    @Query("SELECT m.contentVersion FROM Menu m WHERE m.id = :id")
+    Optional<Long> findContentVersionById(@Param("id") Long id);
+
+    // [menuId, contentVersion] of every menu of the restaurant
+    @Query("SELECT m.id, m.contentVersion FROM Menu m WHERE m.restorant.id = :restorantId ORDER BY m.id")
+    List<Object[]> findContentVersionsByRestorantId(@Param("restorantId") Long restorantId);
+
+    // The new version is "now", or one more than the old one if the clock is behind it
+    @Modifying
+    @Transactional
+    @Query("UPDATE Menu m SET m.contentVersion = CASE WHEN m.contentVersion < :now THEN :now ELSE m.contentVersion + 1 END WHERE m.id = :id")
+    int bumpContentVersion(@Param("id") Long id, @Param("now") long now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Menu m SET m.contentVersion = CASE WHEN m.contentVersion < :now THEN :now ELSE m.contentVersion + 1 END")
+    int bumpAllContentVersions(@Param("now") long now);
 }
@@ -4,12 +4,32 @@ import com.example.qr_menu.entities.Order;
 import com.example.qr_menu.entities.OrderProduct;
 import com.example.qr_menu.entities.OrderProductId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderProductRepository extends JpaRepository<OrderProduct, OrderProductId> {
     List<OrderProduct> findByOrder(Order order);
     List<OrderProduct> findByOrderId(Long orderId);
-} 
\ No newline at end of file
+
+    // Line items of a whole page of orders in one select, without loading Product entities
+    @Query("SELECT op.order.id AS orderId, p.id AS productId, p.productName AS productName, " +
+           "p.productImage AS productImage, op.quantity AS quantity, " +
+           "COALESCE(op.unitPrice, p.productPrice) AS unitPrice " +
+           "FROM OrderProduct op JOIN op.product p WHERE op.order.id IN :orderIds")
+    List<OrderLineView> findLinesByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    interface OrderLineView {
+        Long getOrderId();
+        Long getProductId();
+        String getProductName();
+        String getProductImage();
+        Integer getQuantity();
+        // Price at order time, falling back to the current price for older lines
+        Double getUnitPrice();
+    }
+}
@@ -1,13 +1,21 @@
 package com.example.qr_menu.repositories;
 
 import com.example.qr_menu.entities.Order;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     // Custom query methods (if needed) can be added here
@@ -18,15 +26,53 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT COUNT(o) FROM Order o WHERE o.account.id = :accountId")
     long countByAccountId(@Param("accountId") Long accountId);
     
-    // Find orders by account ID with pagination
-    @Query("SELECT o FROM Order o WHERE o.account.id = :accountId")
+    // Find orders by account ID with pagination (account and restaurant fetched in the same select)
+    @Query(value = "SELECT o FROM Order o JOIN FETCH o.account JOIN FETCH o.restorant WHERE o.account.id = :accountId",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.account.id = :accountId")
     Page<Order> findByAccountId(@Param("accountId") Long accountId, Pageable pageable);
     
-    // Find orders by restaurant ID with pagination
-    @Query("SELECT o FROM Order o WHERE o.restorant.id = :restaurantId")
+    // Find orders by restaurant ID with pagination (account and restaurant fetched in the same select)
+    @Query(value = "SELECT o FROM Order o JOIN FETCH o.account JOIN FETCH o.restorant WHERE o.restorant.id = :restaurantId",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.restorant.id = :restaurantId")
     Page<Order> findByRestaurantId(@Param("restaurantId") Long restaurantId, Pageable pageable);
     
     // Count orders by restaurant ID
     @Query("SELECT COUNT(o) FROM Order o WHERE o.restorant.id = :restaurantId")
     long countByRestaurantId(@Param("restaurantId") Long restaurantId);
+
+    // Keyset (seek) pages, newest first by (order_time, id). Each page reads the composite index
+    // from the cursor onwards and stops at the limit, so deep pages cost the same as the first one.
+    // The redundant "orderTime <= :orderTime" gives the database a plain range to seek on.
+    @Query("SELECT o FROM Order o JOIN FETCH o.account JOIN FETCH o.restorant WHERE o.restorant.id = :restaurantId " +
+           "ORDER BY o.orderTime DESC, o.id DESC")
+    List<Order> findLatestByRestaurantId(@Param("restaurantId") Long restaurantId, Limit limit);
+
+    @Query("SELECT o FROM Order o JOIN FETCH o.account JOIN FETCH o.restorant WHERE o.restorant.id = :restaurantId " +
+           "AND o.orderTime <= :orderTime AND (o.orderTime < :orderTime OR o.id < :id) " +
+           "ORDER BY o.orderTime DESC, o.id DESC")
+    List<Order> findByRestaurantIdBefore(@Param("restaurantId") Long restaurantId, @Param("orderTime") Date orderTime,
+                                         @Param("id") Long id, Limit limit);
+
+    @Query("SELECT o FROM Order o JOIN FETCH o.account JOIN FETCH o.restorant WHERE o.account.id = :accountId " +
+           "ORDER BY o.orderTime DESC, o.id DESC")
+    List<Order> findLatestByAccountId(@Param("accountId") Long accountId, Limit limit);
+
+    @Query("SELECT o FROM Order o JOIN FETCH o.account JOIN FETCH o.restorant WHERE o.account.id = :accountId " +
+           "AND o.orderTime <= :orderTime AND (o.orderTime < :orderTime OR o.id < :id) " +
+           "ORDER BY o.orderTime DESC, o.id DESC")
+    List<Order> findByAccountIdBefore(@Param("accountId") Long accountId, @Param("orderTime") Date orderTime,
+                                      @Param("id") Long id, Limit limit);
+
+    @Query("SELECT o FROM Order o JOIN FETCH o.account JOIN FETCH o.restorant ORDER BY o.orderTime DESC, o.id DESC")
+    List<Order> findLatest(Limit limit);
+
+    @Query("SELECT o FROM Order o JOIN FETCH o.account JOIN FETCH o.restorant " +
+           "WHERE o.orderTime <= :orderTime AND (o.orderTime < :orderTime OR o.id < :id) " +
+           "ORDER BY o.orderTime DESC, o.id DESC")
+    List<Order> findBefore(@Param("orderTime") Date orderTime, @Param("id") Long id, Limit limit);
+
+    // SELECT ... FOR UPDATE: status changes and deletes of the same order run one after the other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findByIdForUpdate(@Param("id") Long id);
 }
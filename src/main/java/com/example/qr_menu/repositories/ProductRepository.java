@@ -14,6 +14,12 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByCategoryId(Long categoryId);
     List<Product> findByMenuId(Long menuId);
 
+    @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.allergens WHERE p.menu.id = :menuId ORDER BY p.id")
+    List<Product> findByMenuIdWithAllergens(@Param("menuId") Long menuId);
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.menu.id = :menuId ORDER BY p.id")
+    List<Product> findByMenuIdWithCategory(@Param("menuId") Long menuId);
+
     @Query("SELECT p FROM Product p WHERE p.menu = :menu AND p.productImage = :oldImage")
     List<Product> findByMenuAndOldDefaultImage(@Param("menu") Menu menu, @Param("oldImage") String oldImage);
     
@@ -5,6 +5,8 @@ import com.example.qr_menu.entities.Restorant;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -22,4 +24,7 @@ public interface RestaurantRepository extends JpaRepository<Restorant, Long> {
      * @return List of restaurants created by the account
      */
     List<Restorant> findByAccount(Account account);
+
+    @Query("SELECT r.id FROM Restorant r WHERE r.account.id = :accountId")
+    List<Long> findIdsByAccountId(@Param("accountId") Long accountId);
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.example.qr_menu.security;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Authenticated account built from verified JWT claims, without loading the account row.
+ * The username is the mail address (the token subject), same as the database-backed
+ * UserDetails, so controllers using {@code @AuthenticationPrincipal UserDetails} keep working.
+ */
+@Getter
+public class AccountPrincipal implements UserDetails {
+
+    private final Long accountId;
+    private final String username;
+    private final String accountType;
+    private final List<GrantedAuthority> authorities;
+
+    public AccountPrincipal(Long accountId, String username, String accountType) {
+        this.accountId = accountId;
+        this.username = username;
+        this.accountType = accountType;
+        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + accountType));
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.qr_menu.security;
 
 import com.example.qr_menu.utils.JwtTokenUtil;
-import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -23,18 +26,26 @@ import java.util.Collections;
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
 
+    // GenericFilterBean already has a commons-logging "logger" field
+    private static final Logger log = LoggerFactory.getLogger(JwtRequestFilter.class);
+
     @Autowired
     private JwtTokenUtil jwtTokenUtil;
 
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    // Build the principal from the token instead of loading the account on every request
+    @Value("${jwt.stateless-auth:true}")
+    private boolean statelessAuth;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
 
-        String path = request.getRequestURI();
-
         // Allow unauthenticated access to public endpoints
         if (isPublicEndpoint(request)) {
             chain.doFilter(request, response);
@@ -42,38 +53,30 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         }
 
         final String authorizationHeader = request.getHeader("Authorization");
-        String username = null;
-        String jwt = null;
+        Claims claims = null;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
+            String jwt = authorizationHeader.substring(7);
             try {
-                username = jwtTokenUtil.extractUsername(jwt);
-            } catch (ExpiredJwtException e) {
-                logger.warn("JWT Token has expired: " + e.getMessage());
-            } catch (Exception e) {
-                logger.error("Error while parsing JWT Token: " + e.getMessage());
-                logger.error("JWT Token: " + jwt); // Логнете токена за анализ
+                // Verified once per token; repeat requests with the same token hit the claims cache
+                claims = jwtTokenUtil.getAllClaimsFromToken(jwt);
+            } catch (IllegalArgumentException e) {
+                log.debug("Rejected JWT token uri={} reason={}", request.getRequestURI(), e.getMessage());
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        if (claims != null && claims.getSubject() != null && !JwtTokenUtil.isExpired(claims)
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = statelessAuth ? principalFromClaims(claims) : loadUser(claims);
 
-            if (jwtTokenUtil.validateToken(jwt, userDetails.getUsername())) {
+            if (userDetails != null) {
                 // Extract and process the account type
-                String accountType = jwtTokenUtil.extractClaim(jwt, claims -> claims.get("accountType", String.class));
+                String accountType = claims.get("accountType", String.class);
                 if (accountType != null && accountType.startsWith("ROLE_")) {
                     accountType = accountType.substring(5); // Strip "ROLE_" prefix
                 }
 
                 SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + accountType);
-                
-                // Debug log
-                System.out.println("JWT Authentication - Username: " + username + 
-                                  ", AccountType: " + accountType + 
-                                  ", Authority: " + authority.getAuthority() + 
-                                  ", Request URI: " + request.getRequestURI());
 
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, Collections.singletonList(authority));
@@ -85,6 +88,31 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         chain.doFilter(request, response);
     }
 
+    /**
+     * Builds the principal from the verified claims alone - no database access.
+     * Returns null when the token has been revoked.
+     */
+    private UserDetails principalFromClaims(Claims claims) {
+        if (tokenRevocationService.isRevoked(claims)) {
+            log.debug("Revoked JWT token subject={}", claims.getSubject());
+            return null;
+        }
+        String accountType = claims.get("accountType", String.class);
+        if (accountType != null && accountType.startsWith("ROLE_")) {
+            accountType = accountType.substring(5);
+        }
+        return new AccountPrincipal(claims.get("accountId", Long.class), claims.getSubject(), accountType);
+    }
+
+    /**
+     * Database-backed lookup, used when jwt.stateless-auth is switched off.
+     */
+    private UserDetails loadUser(Claims claims) {
+        String username = claims.getSubject();
+        UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        return username.equals(userDetails.getUsername()) ? userDetails : null;
+    }
+
     /**
      * Determines if the given request is for a public endpoint.
      *
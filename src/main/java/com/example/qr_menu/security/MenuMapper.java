@@ -14,9 +14,13 @@ public class MenuMapper {
                 .createdAt(menu.getCreatedAt())
                 .updatedAt(menu.getUpdatedAt())
                 .menuUrl(menu.getMenuUrl())
-                .qrCodeImage(menu.getQrCodeImage())
+                .qrCodeUrl(qrCodeUrl(menu.getId()))
                 .menuImage(menu.getMenuImage())
                 .textColor(menu.getTextColor())
                 .build();
     }
+
+    public static String qrCodeUrl(Long menuId) {
+        return menuId != null ? "/api/menus/" + menuId + "/qrcode" : null;
+    }
 }
@@ -16,6 +16,10 @@ public class SecurityUtils {
             return null;
         }
         
+        if (authentication.getPrincipal() instanceof AccountPrincipal accountPrincipal) {
+            return accountPrincipal.getAccountId();
+        }
+
         if (authentication.getPrincipal() instanceof UserDetails userDetails) {
             // Extract account ID from the UserDetails implementation
             // You may need to modify this based on your actual UserDetails implementation
@@ -0,0 +1,135 @@
+package com.example.qr_menu.security;
+
+import com.example.qr_menu.entities.Account;
+import com.example.qr_menu.utils.AfterCommit;
+import com.example.qr_menu.utils.JwtTokenUtil;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides whether a verified token has been revoked, without a database round trip.
+ * Every token carries the account's token version at login. Bumping the version
+ * (e.g. on a role change) invalidates all older tokens of that account. Only accounts
+ * with a version above 0 are kept in memory, and that map is reloaded in the
+ * background, so other instances pick up revocations within the refresh interval.
+ * Deleted accounts have no row left to read, so they are written to the revoked_account
+ * table until their last token would have expired anyway; the same refresh loads that
+ * table into a small deny-list.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long refreshSeconds;
+    private final ScheduledExecutorService executor;
+
+    private final Map<Long, Integer> tokenVersions = new ConcurrentHashMap<>();
+    private final Map<Long, Long> deniedUntil = new ConcurrentHashMap<>();
+
+    public TokenRevocationService(JdbcTemplate jdbcTemplate,
+                                  @Value("${jwt.revocation.refresh-seconds:30}") long refreshSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.refreshSeconds = refreshSeconds;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-revocation-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts the background refresh once the application is ready, i.e. after the Flyway
+     * migrations have created the columns and tables it reads.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRefresh() {
+        executor.scheduleWithFixedDelay(this::refresh, 0, refreshSeconds, TimeUnit.SECONDS);
+    }
+
+    public boolean isRevoked(Claims claims) {
+        Long accountId = claims.get("accountId", Long.class);
+        if (accountId == null) {
+            return true;
+        }
+        Long denied = deniedUntil.get(accountId);
+        if (denied != null && denied > System.currentTimeMillis()) {
+            return true;
+        }
+        Integer tokenVersion = claims.get("tokenVersion", Integer.class);
+        int current = tokenVersions.getOrDefault(accountId, 0);
+        return current > (tokenVersion != null ? tokenVersion : 0);
+    }
+
+    /**
+     * Bumps the account's token version so every token issued before now is rejected.
+     * The caller saves the account; this instance applies the bump once the transaction commits.
+     */
+    public void revokeTokens(Account account) {
+        int next = currentVersion(account) + 1;
+        account.setTokenVersion(next);
+        Long accountId = account.getId();
+        AfterCommit.run(() -> tokenVersions.merge(accountId, next, Math::max));
+    }
+
+    /**
+     * Rejects all tokens of an account that is being deleted. The entry is written in the
+     * caller's transaction; this instance applies it once the transaction commits.
+     */
+    public void denyAccount(Long accountId) {
+        long until = System.currentTimeMillis() + JwtTokenUtil.TOKEN_LIFETIME_MILLIS;
+        jdbcTemplate.update("DELETE FROM revoked_account WHERE account_id = ?", accountId);
+        jdbcTemplate.update("INSERT INTO revoked_account (account_id, denied_until) VALUES (?, ?)", accountId, until);
+        AfterCommit.run(() -> deniedUntil.put(accountId, until));
+    }
+
+    public static int currentVersion(Account account) {
+        return account.getTokenVersion() != null ? account.getTokenVersion() : 0;
+    }
+
+    /**
+     * Reloads token versions and denied accounts from the database.
+     * Runs every {@code jwt.revocation.refresh-seconds}.
+     */
+    public void refresh() {
+        try {
+            // Versions only grow, so merging keeps a bump applied here after this query started
+            jdbcTemplate.query("SELECT id, token_version FROM account WHERE token_version > 0",
+                    rs -> {
+                        tokenVersions.merge(rs.getLong("id"), rs.getInt("token_version"), Math::max);
+                    });
+
+            long now = System.currentTimeMillis();
+            jdbcTemplate.update("DELETE FROM revoked_account WHERE denied_until <= ?", now);
+            // Merged rather than replaced for the same reason
+            jdbcTemplate.query("SELECT account_id, denied_until FROM revoked_account",
+                    rs -> {
+                        deniedUntil.merge(rs.getLong("account_id"), rs.getLong("denied_until"), Math::max);
+                    });
+            deniedUntil.values().removeIf(until -> until <= now);
+        } catch (DataAccessException e) {
+            // Keep the last known state; the next run tries again
+            logger.warn("Failed to reload token revocations, retrying in {}s: {}", refreshSeconds, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.qr_menu.security;
+
+import com.example.qr_menu.utils.CacheStats;
+import io.jsonwebtoken.Claims;
+import lombok.AllArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded LRU cache of JWT claims whose signature has already been verified.
+ * Entries are keyed by a SHA-256 hash of the token, so the cache never holds the
+ * bearer tokens themselves, and an entry is dropped once the TTL or the token's own
+ * expiration passes - whichever comes first.
+ */
+public class VerifiedClaimsCache {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<String, Entry> entries;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final CacheStats stats = new CacheStats();
+
+    public VerifiedClaimsCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public Claims get(String token) {
+        if (maxEntries <= 0) {
+            return null;
+        }
+        String key = hash(token);
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                stats.miss();
+                return null;
+            }
+            if (entry.expiresAt <= System.currentTimeMillis()) {
+                entries.remove(key);
+                stats.miss();
+                return null;
+            }
+            stats.hit();
+            return entry.claims;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(String token, Claims claims) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            expiresAt = Math.min(expiresAt, expiration.getTime());
+        }
+
+        String key = hash(token);
+        lock.lock();
+        try {
+            entries.put(key, new Entry(claims, expiresAt));
+            while (entries.size() > maxEntries) {
+                String eldest = entries.keySet().iterator().next();
+                entries.remove(eldest);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+        private final Claims claims;
+        private final long expiresAt;
+    }
+}
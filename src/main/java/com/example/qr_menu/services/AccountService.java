@@ -7,24 +7,26 @@ import com.example.qr_menu.dto.RestaurantDTO;
 import com.example.qr_menu.entities.Account;
 import com.example.qr_menu.entities.ManagerAssignment;
 import com.example.qr_menu.entities.Restorant;
+import com.example.qr_menu.events.RestaurantAccessChangedEvent;
 import com.example.qr_menu.exceptions.ResourceNotFoundException;
 import com.example.qr_menu.repositories.AccountRepository;
 import com.example.qr_menu.repositories.RestaurantRepository;
 import com.example.qr_menu.repositories.ManagerAssignmentRepository;
+import com.example.qr_menu.security.TokenRevocationService;
 import com.example.qr_menu.utils.JwtTokenUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.*;
 import java.sql.Timestamp;
 import java.util.List;
 import java.util.Optional;
@@ -33,13 +35,16 @@ import java.util.stream.Collectors;
 @Service
 public class AccountService {
 
+    private static final Logger logger = LoggerFactory.getLogger(AccountService.class);
+
     private final AccountRepository accountRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenUtil jwtTokenUtil;
     private final RestaurantRepository restaurantRepository;
     private final ManagerAssignmentRepository managerAssignmentRepository;
-    private final com.example.qr_menu.repositories.OrderRepository orderRepository;
-    private final com.example.qr_menu.repositories.OrderProductRepository orderProductRepository;
+    private final TokenRevocationService tokenRevocationService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ImageStorageService imageStorageService;
 
     @Autowired
     public AccountService(AccountRepository accountRepository,
@@ -47,15 +52,17 @@ public class AccountService {
                           JwtTokenUtil jwtTokenUtil,
                           RestaurantRepository restaurantRepository,
                           ManagerAssignmentRepository managerAssignmentRepository,
-                          com.example.qr_menu.repositories.OrderRepository orderRepository,
-                          com.example.qr_menu.repositories.OrderProductRepository orderProductRepository) {
+                          TokenRevocationService tokenRevocationService,
+                          ApplicationEventPublisher eventPublisher,
+                          ImageStorageService imageStorageService) {
         this.accountRepository = accountRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtTokenUtil = jwtTokenUtil;
         this.restaurantRepository = restaurantRepository;
         this.managerAssignmentRepository = managerAssignmentRepository;
-        this.orderRepository = orderRepository;
-        this.orderProductRepository = orderProductRepository;
+        this.tokenRevocationService = tokenRevocationService;
+        this.eventPublisher = eventPublisher;
+        this.imageStorageService = imageStorageService;
     }
 
     /**
@@ -100,43 +107,32 @@ public class AccountService {
      */
     public String login(LoginDTO loginDTO) {
         try {
-            System.out.println("Attempting login for: " + loginDTO.getAccountName() + " or " + loginDTO.getMailAddress());
-            
             Optional<Account> accountOpt = accountRepository.findByAccountNameOrMailAddress(
                     loginDTO.getAccountName(), loginDTO.getMailAddress());
 
             if (accountOpt.isEmpty()) {
-                System.out.println("Account not found");
+                logger.debug("Login failed reason=unknown_account");
                 throw new IllegalArgumentException("Invalid username or password");
             }
 
             Account account = accountOpt.get();
-            System.out.println("Found account: ID=" + account.getId() + ", Name=" + account.getAccountName());
             
             if (passwordEncoder.matches(loginDTO.getPassword(), account.getPassword())) {
-                // Log account details before generating the token
-                System.out.println("Password match for account: " + account.getId());
-                System.out.println("Account type: " + account.getAccountType());
-                System.out.println("Account first name: " + account.getFirstName());
-                
                 try {
                     // Generate JWT token
                     String token = jwtTokenUtil.generateToken(account);
-                    System.out.println("Token generated successfully with length: " + token.length());
+                    logger.info("Login succeeded accountId={} accountType={}", account.getId(), account.getAccountType());
                     return token;
                 } catch (Exception e) {
-                    System.out.println("Error generating token: " + e.getMessage());
-                    e.printStackTrace();
                     throw new RuntimeException("Error generating JWT token: " + e.getMessage(), e);
                 }
             } else {
-                System.out.println("Password does not match");
+                logger.debug("Login failed reason=bad_password accountId={}", account.getId());
                 throw new IllegalArgumentException("Invalid username or password");
             }
         } catch (Exception e) {
             if (!(e instanceof IllegalArgumentException)) {
-                System.out.println("Unexpected error during login: " + e.getMessage());
-                e.printStackTrace();
+                logger.error("Unexpected error during login", e);
                 throw new RuntimeException("Login failed due to an unexpected error", e);
             }
             throw e;
@@ -251,6 +247,8 @@ public class AccountService {
     public void deleteAccount(Long id) {
         if (accountRepository.existsById(id)) {
             accountRepository.deleteById(id);
+            tokenRevocationService.denyAccount(id);
+            eventPublisher.publishEvent(new RestaurantAccessChangedEvent(id));
         } else {
             throw new IllegalArgumentException("Account with ID " + id + " does not exist.");
         }
@@ -269,6 +267,11 @@ public class AccountService {
         if (accountDTO.getMailAddress() != null) account.setMailAddress(accountDTO.getMailAddress());
         if (accountDTO.getNumber() != null) account.setNumber(accountDTO.getNumber());
         if (accountDTO.getAccountType() != null) {
+            if (accountDTO.getAccountType() != account.getAccountType()) {
+                // Tokens still carry the old role
+                tokenRevocationService.revokeTokens(account);
+                eventPublisher.publishEvent(new RestaurantAccessChangedEvent(id));
+            }
             account.setAccountType(accountDTO.getAccountType());
             // Save which admin performed the role change
             if (accountDTO.getUpdatedBy() != null) {
@@ -310,47 +313,20 @@ public class AccountService {
             throw new SecurityException("You are not allowed to change this profile picture.");
         }
 
-        // 4. Create base upload directory
-        Path baseUploadPath = Paths.get("uploads", "profilePictures");
-        if (!Files.exists(baseUploadPath)) {
-            Files.createDirectories(baseUploadPath);
-        }
-
-        // 5. Create user-specific directory
-        Path userUploadPath = baseUploadPath.resolve(accountId.toString());
-        if (!Files.exists(userUploadPath)) {
-            Files.createDirectories(userUploadPath);
-        }
-
-        // 6. Generate unique filename with timestamp and original extension
-        String originalFilename = StringUtils.cleanPath(profilePicture.getOriginalFilename());
-        String fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
-        String newFilename = System.currentTimeMillis() + fileExtension;
-
-        // 7. Save the file
-        Path filePath = userUploadPath.resolve(newFilename);
-        try (InputStream inputStream = profilePicture.getInputStream()) {
-            Files.copy(inputStream, filePath, StandardCopyOption.REPLACE_EXISTING);
-        }
+        // 4. Stream the file into uploads/profilePictures/{accountId}/
+        String profilePicturePath = imageStorageService.storeImage(profilePicture, "profilePictures/" + accountId);
 
-        // 8. Delete old profile picture if it exists and is not the default
+        // 5. Delete old profile picture if it exists and is not the default (same content keeps the same file)
         String oldProfilePicture = accountToUpdate.getProfilePicture();
-        if (oldProfilePicture != null && !oldProfilePicture.equals("default_profile.png")) {
-            try {
-                Path oldFilePath = Paths.get(oldProfilePicture.substring(1)); // Remove leading slash
-                Files.deleteIfExists(oldFilePath);
-            } catch (IOException e) {
-                // Log error but continue with the update
-                System.err.println("Failed to delete old profile picture: " + e.getMessage());
-            }
+        if (oldProfilePicture != null && !oldProfilePicture.equals(profilePicturePath)) {
+            imageStorageService.deleteQuietly(oldProfilePicture);
         }
 
-        // 9. Update profile picture path in database
-        String profilePicturePath = "/uploads/profilePictures/" + accountId + "/" + newFilename;
+        // 6. Update profile picture path in database
         accountToUpdate.setProfilePicture(profilePicturePath);
         accountToUpdate.setUpdatedAt(new Timestamp(System.currentTimeMillis()));
 
-        // 10. Save to database
+        // 7. Save to database
         accountRepository.save(accountToUpdate);
     }
 
@@ -407,7 +383,11 @@ public class AccountService {
         Account targetAccount = accountRepository.findById(accountId)
                 .orElseThrow(() -> new ResourceNotFoundException("Target account not found with id: " + accountId));
         
-        // Update the role
+        // Update the role; tokens issued with the old role stop working
+        if (targetAccount.getAccountType() != newRole) {
+            tokenRevocationService.revokeTokens(targetAccount);
+            eventPublisher.publishEvent(new RestaurantAccessChangedEvent(accountId));
+        }
         targetAccount.setAccountType(newRole);
         targetAccount.setUpdatedAt(new Timestamp(System.currentTimeMillis()));
         targetAccount.setUpdatedBy(adminAccount.getId());
@@ -443,6 +423,7 @@ public class AccountService {
         // Find the target account
         Account targetAccount = accountRepository.findById(accountId)
                 .orElseThrow(() -> new ResourceNotFoundException("Target account not found with id: " + accountId));
+        Account.AccountType previousRole = targetAccount.getAccountType();
         
         // Validate role - managers can only set users to ROLE_USER or ROLE_COMANAGER
         if (newRole != Account.AccountType.ROLE_USER && newRole != Account.AccountType.ROLE_COMANAGER) {
@@ -485,6 +466,7 @@ public class AccountService {
                 
                 // Since the user is already a COMANAGER, we don't need to update the role
                 // Just return the current account
+                eventPublisher.publishEvent(new RestaurantAccessChangedEvent(accountId));
                 return mapToDTO(targetAccount);
             } 
             else {
@@ -540,6 +522,7 @@ public class AccountService {
                 } else {
                     // User still has other co-manager assignments, don't change the role
                     // Just return current account
+                    eventPublisher.publishEvent(new RestaurantAccessChangedEvent(accountId));
                     return mapToDTO(targetAccount);
                 }
             } else {
@@ -576,12 +559,18 @@ public class AccountService {
                 } else {
                     // User still has other co-manager assignments, don't change the role
                     // Just return current account
+                    eventPublisher.publishEvent(new RestaurantAccessChangedEvent(accountId));
                     return mapToDTO(targetAccount);
                 }
             }
         }
         
         // Save changes to the account (role changes, etc.)
+        if (targetAccount.getAccountType() != previousRole) {
+            tokenRevocationService.revokeTokens(targetAccount);
+        }
+        // Assignments may have been added or removed even when the role stays the same
+        eventPublisher.publishEvent(new RestaurantAccessChangedEvent(accountId));
         targetAccount.setUpdatedAt(new Timestamp(System.currentTimeMillis()));
         targetAccount.setUpdatedBy(managerAccount.getId());
         
@@ -600,25 +589,6 @@ public class AccountService {
         return accountRepository.findByAccountType(accountType);
     }
 
-    /**
-     * Get orders for an account with pagination
-     * @param accountId The account ID
-     * @param pageable Pagination and sorting information
-     * @return Page of orders
-     */
-    public org.springframework.data.domain.Page<com.example.qr_menu.entities.Order> getOrdersByAccountId(Long accountId, org.springframework.data.domain.Pageable pageable) {
-        return orderRepository.findByAccountId(accountId, pageable);
-    }
-    
-    /**
-     * Get order products for an order
-     * @param orderId The order ID
-     * @return List of order products
-     */
-    public List<com.example.qr_menu.entities.OrderProduct> getOrderProductsByOrderId(Long orderId) {
-        return orderProductRepository.findByOrderId(orderId);
-    }
-
     /**
      * Помощен метод за конверсия на Entity -> DTO.
      */
@@ -0,0 +1,199 @@
+package com.example.qr_menu.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Builds the admin dashboard statistics with aggregate SQL, so memory use does not
+ * grow with the number of orders. The assembled result is cached for a short TTL
+ * because the dashboard polls it and a few seconds of staleness is acceptable.
+ */
+@Service
+public class AdminStatisticsService {
+
+    private static final int TOP_PRODUCTS = 10;
+    private static final int RECENT_ORDERS = 10;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long ttlMillis;
+
+    private volatile Map<String, Object> cachedStatistics;
+    private volatile long cachedAt;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    public AdminStatisticsService(JdbcTemplate jdbcTemplate,
+                                  @Value("${admin.statistics.cache-ttl-seconds:30}") long ttlSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = cachedStatistics;
+        if (statistics != null && System.currentTimeMillis() - cachedAt < ttlMillis) {
+            return statistics;
+        }
+        // A lock rather than synchronized: the refresh runs JDBC queries, which would pin a virtual thread
+        refreshLock.lock();
+        try {
+            // Another request may have refreshed it while we waited
+            if (cachedStatistics != null && System.currentTimeMillis() - cachedAt < ttlMillis) {
+                return cachedStatistics;
+            }
+            statistics = Collections.unmodifiableMap(buildStatistics());
+            cachedStatistics = statistics;
+            cachedAt = System.currentTimeMillis();
+            return statistics;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private Map<String, Object> buildStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+
+        jdbcTemplate.query("SELECT COUNT(*) AS order_count, COALESCE(SUM(total_price), 0) AS revenue FROM orders",
+                rs -> {
+                    statistics.put("totalOrders", rs.getInt("order_count"));
+                    statistics.put("totalRevenue", rs.getBigDecimal("revenue"));
+                });
+
+        statistics.put("orderStatusCounts", getOrderStatusCounts());
+        statistics.put("restaurantStats", getRestaurantStatistics());
+        statistics.put("popularProducts", getPopularProducts());
+        statistics.put("recentOrders", getRecentOrders());
+        statistics.put("timeStats", getTimePeriodStatistics());
+        return statistics;
+    }
+
+    private Map<String, Integer> getOrderStatusCounts() {
+        Map<String, Integer> statusCounts = new HashMap<>();
+        jdbcTemplate.query("SELECT order_status, COUNT(*) AS order_count FROM orders GROUP BY order_status",
+                rs -> {
+                    statusCounts.put(rs.getString("order_status"), rs.getInt("order_count"));
+                });
+        return statusCounts;
+    }
+
+    private List<Map<String, Object>> getRestaurantStatistics() {
+        return jdbcTemplate.query(
+                "SELECT r.id, r.restorant_name, COUNT(o.id) AS order_count, COALESCE(SUM(o.total_price), 0) AS revenue " +
+                "FROM restorant r LEFT JOIN orders o ON o.restorant_id = r.id " +
+                "GROUP BY r.id, r.restorant_name " +
+                "ORDER BY r.id",
+                (rs, rowNum) -> {
+                    int orderCount = rs.getInt("order_count");
+                    BigDecimal revenue = rs.getBigDecimal("revenue");
+                    BigDecimal averageOrderValue = orderCount > 0
+                            ? revenue.divide(BigDecimal.valueOf(orderCount), 2, RoundingMode.HALF_UP)
+                            : BigDecimal.ZERO;
+
+                    Map<String, Object> restaurantStat = new HashMap<>();
+                    restaurantStat.put("id", rs.getLong("id"));
+                    restaurantStat.put("name", rs.getString("restorant_name"));
+                    restaurantStat.put("totalOrders", orderCount);
+                    restaurantStat.put("totalRevenue", revenue);
+                    restaurantStat.put("averageOrderValue", averageOrderValue);
+                    return restaurantStat;
+                });
+    }
+
+    // Served from the product_sales_daily rollup (cancelled orders are not counted)
+    private List<Map<String, Object>> getPopularProducts() {
+        return jdbcTemplate.query(
+                "SELECT p.id, p.product_name, MAX(r.restorant_name) AS restorant_name, " +
+                "SUM(s.quantity) AS quantity, SUM(s.revenue) AS revenue " +
+                "FROM product_sales_daily s " +
+                "JOIN products p ON p.id = s.product_id " +
+                "LEFT JOIN restorant r ON r.id = s.restorant_id " +
+                "GROUP BY p.id, p.product_name " +
+                "HAVING SUM(s.quantity) > 0 " +
+                "ORDER BY quantity DESC " +
+                "LIMIT ?",
+                (rs, rowNum) -> {
+                    Map<String, Object> productStat = new HashMap<>();
+                    productStat.put("id", rs.getLong("id"));
+                    productStat.put("name", rs.getString("product_name"));
+                    String restaurantName = rs.getString("restorant_name");
+                    productStat.put("restaurantName", restaurantName != null ? restaurantName : "Unknown");
+                    productStat.put("orderCount", rs.getInt("quantity"));
+                    productStat.put("revenue", rs.getBigDecimal("revenue"));
+                    return productStat;
+                },
+                TOP_PRODUCTS);
+    }
+
+    private List<Map<String, Object>> getRecentOrders() {
+        return jdbcTemplate.query(
+                "SELECT o.id, o.order_time, o.total_price, o.order_status, a.id AS account_id, a.first_name, a.last_name, " +
+                "r.restorant_name " +
+                "FROM orders o " +
+                "LEFT JOIN account a ON a.id = o.account_id " +
+                "LEFT JOIN restorant r ON r.id = o.restorant_id " +
+                "ORDER BY o.order_time DESC " +
+                "LIMIT ?",
+                (rs, rowNum) -> {
+                    Map<String, Object> orderMap = new HashMap<>();
+                    orderMap.put("id", rs.getLong("id"));
+                    orderMap.put("orderDate", rs.getTimestamp("order_time"));
+                    orderMap.put("totalAmount", rs.getDouble("total_price"));
+                    orderMap.put("status", rs.getString("order_status"));
+
+                    orderMap.put("customerName", rs.getObject("account_id") == null
+                            ? "Unknown"
+                            : rs.getString("first_name") + " " + rs.getString("last_name"));
+
+                    String restaurantName = rs.getString("restorant_name");
+                    orderMap.put("restaurantName", restaurantName != null ? restaurantName : "Unknown");
+                    return orderMap;
+                },
+                RECENT_ORDERS);
+    }
+
+    private Map<String, Object> getTimePeriodStatistics() {
+        LocalDate today = LocalDate.now();
+        LocalDate weekStart = today.minusDays(today.getDayOfWeek().getValue() - 1);
+        LocalDate monthStart = today.withDayOfMonth(1);
+        LocalDate rangeStart = weekStart.isBefore(monthStart) ? weekStart : monthStart;
+
+        Timestamp todayFrom = Timestamp.valueOf(today.atStartOfDay());
+        Timestamp weekFrom = Timestamp.valueOf(weekStart.atStartOfDay());
+        Timestamp monthFrom = Timestamp.valueOf(monthStart.atStartOfDay());
+
+        Map<String, Object> result = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT " +
+                "SUM(CASE WHEN order_time >= ? THEN 1 ELSE 0 END) AS today_orders, " +
+                "SUM(CASE WHEN order_time >= ? THEN total_price ELSE 0 END) AS today_revenue, " +
+                "SUM(CASE WHEN order_time >= ? THEN 1 ELSE 0 END) AS week_orders, " +
+                "SUM(CASE WHEN order_time >= ? THEN total_price ELSE 0 END) AS week_revenue, " +
+                "SUM(CASE WHEN order_time >= ? THEN 1 ELSE 0 END) AS month_orders, " +
+                "SUM(CASE WHEN order_time >= ? THEN total_price ELSE 0 END) AS month_revenue " +
+                "FROM orders WHERE order_time >= ? AND order_time < ?",
+                rs -> {
+                    result.put("today", periodStats(rs.getInt("today_orders"), rs.getBigDecimal("today_revenue")));
+                    result.put("thisWeek", periodStats(rs.getInt("week_orders"), rs.getBigDecimal("week_revenue")));
+                    result.put("thisMonth", periodStats(rs.getInt("month_orders"), rs.getBigDecimal("month_revenue")));
+                },
+                todayFrom, todayFrom, weekFrom, weekFrom, monthFrom, monthFrom,
+                Timestamp.valueOf(rangeStart.atStartOfDay()), Timestamp.valueOf(today.plusDays(1).atStartOfDay()));
+        return result;
+    }
+
+    private static Map<String, Object> periodStats(int orders, BigDecimal revenue) {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("orders", orders);
+        stats.put("revenue", revenue != null ? revenue : BigDecimal.ZERO);
+        return stats;
+    }
+}
@@ -4,10 +4,12 @@ import com.example.qr_menu.dto.CategoryDTO;
 import com.example.qr_menu.entities.Category;
 import com.example.qr_menu.entities.Menu;
 import com.example.qr_menu.entities.Restorant;
+import com.example.qr_menu.events.MenuChangedEvent;
 import com.example.qr_menu.exceptions.ResourceNotFoundException;
 import com.example.qr_menu.repositories.CategoryRepository;
 import com.example.qr_menu.repositories.MenuRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
@@ -24,6 +26,9 @@ public class CategoryService {
     @Autowired
     private MenuRepository menuRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public CategoryDTO createCategory(CategoryDTO categoryDTO) {
         Menu menu = menuRepository.findById(categoryDTO.getMenuId())
                 .orElseThrow(() -> new ResourceNotFoundException("Menu not found"));
@@ -34,6 +39,7 @@ public class CategoryService {
                 .build();
 
         Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new MenuChangedEvent(menu.getId()));
         return convertToDTO(savedCategory);
     }
 
@@ -76,7 +82,11 @@ public class CategoryService {
     }
 
     public void deleteCategory(Long id) {
-        categoryRepository.deleteById(id);
+        categoryRepository.findById(id).ifPresent(category -> {
+            Long menuId = category.getMenu().getId();
+            categoryRepository.delete(category);
+            eventPublisher.publishEvent(new MenuChangedEvent(menuId));
+        });
     }
 
     private CategoryDTO convertToDTO(Category category) {
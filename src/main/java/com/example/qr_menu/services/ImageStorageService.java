@@ -0,0 +1,188 @@
+package com.example.qr_menu.services;
+
+import com.example.qr_menu.exceptions.InvalidUploadException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Stores uploaded images under the uploads directory.
+ * An upload is streamed from the multipart part (which the servlet container keeps on disk)
+ * through one fixed-size buffer into a temp file, hashed on the way, and then moved to
+ * {@code <sha256>.<ext>} in the target directory. Memory per upload is the buffer size no matter
+ * how large the file is, a half-written file is never visible, and two uploads with the same
+ * original name cannot overwrite each other. Identical content in the same directory is stored once.
+ * <p>
+ * Only PNG, JPEG, GIF and WebP are accepted. The type is read from the first bytes of the upload and
+ * picks the stored extension; the client's file name and Content-Type are ignored, so nothing that a
+ * browser would render as HTML or SVG ends up under the public /uploads/ path.
+ */
+@Service
+public class ImageStorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageStorageService.class);
+
+    private static final String PUBLIC_PREFIX = "/uploads/";
+    // Enough leading bytes to tell the accepted formats apart (WebP needs 12)
+    private static final int SNIFF_LENGTH = 12;
+    private static final Pattern SAFE_SUBDIRECTORY = Pattern.compile("[A-Za-z0-9_-]+(/[A-Za-z0-9_-]+)*");
+    // Placeholders referenced by entities that do not have an uploaded image
+    private static final Set<String> DEFAULT_IMAGES = Set.of("default_menu.png", "default_profile.png", "default_product.png");
+
+    private final Path root;
+    private final int bufferSize;
+
+    public ImageStorageService(@Value("${uploads.dir:uploads}") String uploadsDir,
+                               @Value("${uploads.buffer-size:8192}") int bufferSize) {
+        this.root = Paths.get(uploadsDir).toAbsolutePath().normalize();
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Streams an image into {@code uploads/<subdirectory>} and returns its public path
+     * ("/uploads/<subdirectory>/<sha256>.<ext>").
+     *
+     * @throws InvalidUploadException if the file is empty or not an image
+     */
+    public String storeImage(MultipartFile file, String subdirectory) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new InvalidUploadException("Please select a file to upload");
+        }
+        if (!SAFE_SUBDIRECTORY.matcher(subdirectory).matches()) {
+            throw new InvalidUploadException("Invalid upload directory: " + subdirectory);
+        }
+
+        Path directory = root.resolve(subdirectory);
+        Files.createDirectories(directory);
+
+        // The temp file lives next to the target so the final move stays on one file system
+        Path temp = Files.createTempFile(directory, ".upload-", ".tmp");
+        try {
+            String hash;
+            String extension;
+            try (InputStream in = file.getInputStream(); OutputStream out = Files.newOutputStream(temp)) {
+                byte[] header = in.readNBytes(SNIFF_LENGTH);
+                extension = sniffExtension(header);
+                if (extension == null) {
+                    throw new InvalidUploadException("Only PNG, JPEG, GIF and WebP images are allowed");
+                }
+                hash = copyAndHash(header, in, out);
+            }
+
+            String filename = hash + "." + extension;
+            Path target = directory.resolve(filename);
+            if (Files.exists(target)) {
+                // Same bytes were stored before; reuse them
+                Files.deleteIfExists(temp);
+            } else {
+                moveIntoPlace(temp, target);
+            }
+            logger.debug("Stored upload dir={} name={} size={}", subdirectory, filename, file.getSize());
+            return PUBLIC_PREFIX + subdirectory + "/" + filename;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes a previously stored file by its public path. Placeholders, external URLs and
+     * paths outside the uploads directory are ignored; failures are only logged.
+     */
+    public void deleteQuietly(String publicPath) {
+        if (publicPath == null || DEFAULT_IMAGES.contains(publicPath) || !publicPath.startsWith(PUBLIC_PREFIX)) {
+            return;
+        }
+        Path path = root.resolve(publicPath.substring(PUBLIC_PREFIX.length())).normalize();
+        if (!path.startsWith(root)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Failed to delete upload path={}: {}", publicPath, e.getMessage());
+        }
+    }
+
+    private String copyAndHash(byte[] header, InputStream in, OutputStream out) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        digest.update(header);
+        out.write(header);
+        byte[] buffer = new byte[bufferSize];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+            out.write(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // A concurrent upload of the same bytes won the race
+            Files.deleteIfExists(temp);
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(temp, target);
+            } catch (FileAlreadyExistsException raced) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * The extension for the accepted image format the bytes start with, or null for anything else.
+     */
+    private static String sniffExtension(byte[] header) {
+        if (startsWith(header, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "png";
+        }
+        if (startsWith(header, 0, 0xFF, 0xD8, 0xFF)) {
+            return "jpg";
+        }
+        if (startsWith(header, 0, 'G', 'I', 'F', '8') && header.length >= 6
+                && (header[4] == '7' || header[4] == '9') && header[5] == 'a') {
+            return "gif";
+        }
+        if (startsWith(header, 0, 'R', 'I', 'F', 'F') && startsWith(header, 8, 'W', 'E', 'B', 'P')) {
+            return "webp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, int... expected) {
+        if (bytes.length < offset + expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if ((bytes[offset + i] & 0xFF) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -3,11 +3,13 @@ package com.example.qr_menu.services;
 import com.example.qr_menu.entities.Account;
 import com.example.qr_menu.entities.ManagerAssignment;
 import com.example.qr_menu.entities.Restorant;
+import com.example.qr_menu.events.RestaurantAccessChangedEvent;
 import com.example.qr_menu.exceptions.ResourceNotFoundException;
 import com.example.qr_menu.repositories.AccountRepository;
 import com.example.qr_menu.repositories.ManagerAssignmentRepository;
 import com.example.qr_menu.repositories.RestaurantRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,15 +26,18 @@ public class ManagerAssignmentService {
     private final ManagerAssignmentRepository managerAssignmentRepository;
     private final AccountRepository accountRepository;
     private final RestaurantRepository restaurantRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public ManagerAssignmentService(
             ManagerAssignmentRepository managerAssignmentRepository,
             AccountRepository accountRepository,
-            RestaurantRepository restaurantRepository) {
+            RestaurantRepository restaurantRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.managerAssignmentRepository = managerAssignmentRepository;
         this.accountRepository = accountRepository;
         this.restaurantRepository = restaurantRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -63,7 +68,9 @@ public class ManagerAssignmentService {
                 .assignedBy(adminId)
                 .build();
         
-        return managerAssignmentRepository.save(assignment);
+        ManagerAssignment saved = managerAssignmentRepository.save(assignment);
+        eventPublisher.publishEvent(new RestaurantAccessChangedEvent(managerId));
+        return saved;
     }
     
     @Transactional
@@ -72,6 +79,7 @@ public class ManagerAssignmentService {
                 .orElseThrow(() -> new ResourceNotFoundException("Manager assignment not found"));
         
         managerAssignmentRepository.delete(assignment);
+        eventPublisher.publishEvent(new RestaurantAccessChangedEvent(managerId));
     }
     
     @Transactional
@@ -80,6 +88,7 @@ public class ManagerAssignmentService {
                 .orElseThrow(() -> new ResourceNotFoundException("Manager assignment not found with id: " + assignmentId));
                 
         managerAssignmentRepository.delete(assignment);
+        eventPublisher.publishEvent(new RestaurantAccessChangedEvent(assignment.getManager().getId()));
     }
     
     @Transactional(readOnly = true)
@@ -223,6 +232,7 @@ public class ManagerAssignmentService {
             assignments.add(managerAssignmentRepository.save(assignment));
         }
         
+        eventPublisher.publishEvent(new RestaurantAccessChangedEvent(managerId));
         return assignments;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,210 @@
+package com.example.qr_menu.services;
+
+import com.example.qr_menu.dto.AllergenFacetDTO;
+import com.example.qr_menu.dto.MenuProductFilterDTO;
+import com.example.qr_menu.dto.ProductDTO;
+import com.example.qr_menu.entities.Allergen;
+import com.example.qr_menu.entities.Product;
+import com.example.qr_menu.events.MenuChangedEvent;
+import com.example.qr_menu.exceptions.ResourceNotFoundException;
+import com.example.qr_menu.repositories.MenuRepository;
+import com.example.qr_menu.repositories.ProductRepository;
+import com.example.qr_menu.utils.AfterCommit;
+import com.example.qr_menu.utils.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers guest filters such as "no gluten and no nuts, under 15" from a per-menu in-memory index.
+ * Every allergen used in a menu gets a bit; each product's allergens become a bitmask, and prices,
+ * masks and ready-made DTOs are kept in parallel arrays. A filter is one pass over those arrays
+ * without database access. Allergen facet counts are computed once per index.
+ * Indexes are built lazily and dropped whenever a {@link MenuChangedEvent} arrives.
+ */
+@Service
+public class MenuFilterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MenuFilterService.class);
+
+    private final MenuRepository menuRepository;
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+
+    private final ConcurrentHashMap<Long, MenuFilterIndex> indexes = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so an index built from stale data is never published
+    private final ConcurrentHashMap<Long, Long> generations = new ConcurrentHashMap<>();
+    private final AtomicLong globalGeneration = new AtomicLong();
+    private final CacheStats stats = new CacheStats();
+
+    public MenuFilterService(MenuRepository menuRepository,
+                             ProductRepository productRepository,
+                             ProductService productService) {
+        this.menuRepository = menuRepository;
+        this.productRepository = productRepository;
+        this.productService = productService;
+    }
+
+    /**
+     * Products of the menu that contain none of the excluded allergens and cost at most maxPrice.
+     * Unknown allergen IDs exclude nothing; products without a price never pass a price limit.
+     */
+    public MenuProductFilterDTO filterProducts(Long menuId, Collection<Long> excludeAllergens, Double maxPrice) {
+        MenuFilterIndex index = getIndex(menuId);
+        List<ProductDTO> matches = index.filter(excludeAllergens, maxPrice);
+        return MenuProductFilterDTO.builder()
+                .menuId(menuId)
+                .totalProducts(index.size())
+                .matchedProducts(matches.size())
+                .products(matches)
+                .facets(index.facets)
+                .build();
+    }
+
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    @EventListener
+    public void onMenuChanged(MenuChangedEvent event) {
+        AfterCommit.invalidate(() -> invalidate(event));
+    }
+
+    private void invalidate(MenuChangedEvent event) {
+        if (event.affectsAllMenus()) {
+            globalGeneration.incrementAndGet();
+            indexes.clear();
+            return;
+        }
+        indexes.compute(event.getMenuId(), (id, existing) -> {
+            generations.merge(id, 1L, Long::sum);
+            return null;
+        });
+    }
+
+    private MenuFilterIndex getIndex(Long menuId) {
+        MenuFilterIndex cached = indexes.get(menuId);
+        if (cached != null) {
+            stats.hit();
+            return cached;
+        }
+        stats.miss();
+
+        long generation = generations.getOrDefault(menuId, 0L);
+        long global = globalGeneration.get();
+        MenuFilterIndex built = buildIndex(menuId);
+
+        indexes.compute(menuId, (id, existing) ->
+                generations.getOrDefault(id, 0L) == generation && globalGeneration.get() == global
+                        ? built
+                        : existing);
+        return built;
+    }
+
+    private MenuFilterIndex buildIndex(Long menuId) {
+        if (!menuRepository.existsById(menuId)) {
+            throw new ResourceNotFoundException("Menu not found");
+        }
+        List<Product> products = productRepository.findByMenuIdWithAllergens(menuId);
+
+        // Bit positions follow allergen ID order, over the allergens this menu actually uses
+        TreeMap<Long, String> allergenNames = new TreeMap<>();
+        for (Product product : products) {
+            for (Allergen allergen : product.getAllergens()) {
+                allergenNames.put(allergen.getId(), allergen.getAllergenName());
+            }
+        }
+        long[] allergenIds = allergenNames.keySet().stream().mapToLong(Long::longValue).toArray();
+        int words = Math.max(1, (allergenIds.length + 63) >>> 6);
+
+        int size = products.size();
+        double[] prices = new double[size];
+        long[] masks = new long[size * words];
+        ProductDTO[] dtos = new ProductDTO[size];
+        int[] counts = new int[allergenIds.length];
+        for (int i = 0; i < size; i++) {
+            Product product = products.get(i);
+            prices[i] = product.getProductPrice() != null ? product.getProductPrice() : Double.NaN;
+            for (Allergen allergen : product.getAllergens()) {
+                int bit = Arrays.binarySearch(allergenIds, allergen.getId());
+                long wordMask = 1L << (bit & 63);
+                int word = i * words + (bit >>> 6);
+                if ((masks[word] & wordMask) == 0) {
+                    masks[word] |= wordMask;
+                    counts[bit]++;
+                }
+            }
+            dtos[i] = productService.convertToDto(product);
+        }
+
+        List<AllergenFacetDTO> facets = new ArrayList<>(allergenIds.length);
+        for (int bit = 0; bit < allergenIds.length; bit++) {
+            facets.add(new AllergenFacetDTO(allergenIds[bit], allergenNames.get(allergenIds[bit]), counts[bit]));
+        }
+        logger.debug("Built menu filter index menuId={} products={} allergens={}", menuId, size, allergenIds.length);
+        return new MenuFilterIndex(allergenIds, words, prices, masks, dtos, Collections.unmodifiableList(facets));
+    }
+
+    static final class MenuFilterIndex {
+        private final long[] allergenIds;
+        private final int words;
+        private final double[] prices;
+        private final long[] masks;
+        private final ProductDTO[] products;
+        private final List<AllergenFacetDTO> facets;
+
+        MenuFilterIndex(long[] allergenIds, int words, double[] prices, long[] masks,
+                        ProductDTO[] products, List<AllergenFacetDTO> facets) {
+            this.allergenIds = allergenIds;
+            this.words = words;
+            this.prices = prices;
+            this.masks = masks;
+            this.products = products;
+            this.facets = facets;
+        }
+
+        int size() {
+            return products.length;
+        }
+
+        List<ProductDTO> filter(Collection<Long> excludeAllergens, Double maxPrice) {
+            long[] exclude = new long[words];
+            if (excludeAllergens != null) {
+                for (Long allergenId : excludeAllergens) {
+                    int bit = allergenId != null ? Arrays.binarySearch(allergenIds, allergenId) : -1;
+                    if (bit >= 0) {
+                        exclude[bit >>> 6] |= 1L << (bit & 63);
+                    }
+                }
+            }
+            boolean limitPrice = maxPrice != null;
+            double limit = limitPrice ? maxPrice : 0;
+
+            List<ProductDTO> matches = new ArrayList<>();
+            outer:
+            for (int i = 0, base = 0; i < products.length; i++, base += words) {
+                // NaN (no price) fails the comparison, so unpriced products drop out under a limit
+                if (limitPrice && !(prices[i] <= limit)) {
+                    continue;
+                }
+                for (int w = 0; w < words; w++) {
+                    if ((masks[base + w] & exclude[w]) != 0) {
+                        continue outer;
+                    }
+                }
+                matches.add(products[i]);
+            }
+            return matches;
+        }
+    }
+}
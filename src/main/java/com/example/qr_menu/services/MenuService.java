@@ -4,26 +4,29 @@ import com.example.qr_menu.dto.CategoryDTO;
 import com.example.qr_menu.dto.MenuDTO;
 import com.example.qr_menu.entities.Category;
 import com.example.qr_menu.entities.Menu;
+import com.example.qr_menu.entities.MenuQRCode;
 import com.example.qr_menu.entities.Product;
 import com.example.qr_menu.entities.Restorant;
+import com.example.qr_menu.events.MenuChangedEvent;
+import com.example.qr_menu.exceptions.InvalidUploadException;
 import com.example.qr_menu.exceptions.ResourceNotFoundException;
 import com.example.qr_menu.repositories.CategoryRepository;
+import com.example.qr_menu.repositories.MenuQRCodeRepository;
 import com.example.qr_menu.repositories.MenuRepository;
 import com.example.qr_menu.repositories.ProductRepository;
 import com.example.qr_menu.repositories.RestaurantRepository;
 import com.example.qr_menu.security.MenuMapper;
 import com.example.qr_menu.utils.QRCodeGenerator;
+import com.google.zxing.WriterException;
+import io.micrometer.core.annotation.Timed;
 import lombok.Builder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.*;
 import java.sql.Timestamp;
 import java.util.Date;
 import java.util.List;
@@ -32,11 +35,17 @@ import java.util.stream.Collectors;
 @Service
 public class MenuService {
 
+    // QRCodeGenerator renders with the ZXing defaults: 4 module quiet zone and error correction level L
+    private static final int MENU_QR_SIZE = 200;
+    private static final int MENU_QR_MARGIN = 4;
+    private static final String MENU_QR_ERROR_CORRECTION = "L";
+
     private final MenuRepository menuRepository;
     private final RestaurantRepository restaurantRepository;
     private final CategoryRepository categoryRepository;
 
     private final ProductRepository productRepository;
+    private final MenuQRCodeRepository menuQRCodeRepository;
 
     @Value("${server.host}")
     private String serverHost;
@@ -44,82 +53,64 @@ public class MenuService {
     private String viteHost;
     @Autowired
     private MenuMapper menuMapper;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private QRCodeCacheService qrCodeCacheService;
+    @Autowired
+    private ImageStorageService imageStorageService;
 
     @Autowired
     public MenuService(MenuRepository menuRepository,
                        RestaurantRepository restaurantRepository,
-                       CategoryRepository categoryRepository, ProductRepository productRepository) {
+                       CategoryRepository categoryRepository, ProductRepository productRepository,
+                       MenuQRCodeRepository menuQRCodeRepository) {
         this.menuRepository = menuRepository;
         this.restaurantRepository = restaurantRepository;
         this.categoryRepository = categoryRepository;
         this.productRepository = productRepository;
+        this.menuQRCodeRepository = menuQRCodeRepository;
     }
 
+    @Timed(value = "menus.image.upload", percentiles = {0.5, 0.95, 0.99})
     public String uploadMenuImage(Long menuId, MultipartFile menuImage) throws IOException {
         if (menuImage == null || menuImage.isEmpty()) {
-            throw new IllegalArgumentException("Please select a file to upload");
-        }
-
-        // Validate file type
-        String contentType = menuImage.getContentType();
-        if (contentType == null || !contentType.startsWith("image/")) {
-            throw new IllegalArgumentException("Only image files are allowed");
+            throw new InvalidUploadException("Please select a file to upload");
         }
 
         // 1. Find the menu
         Menu menu = menuRepository.findById(menuId)
                 .orElseThrow(() -> new ResourceNotFoundException("Menu not found with id: " + menuId));
 
-        // 2. Create base upload directory with absolute path
-        Path baseUploadPath = Paths.get("").toAbsolutePath().resolve("uploads").resolve("menuImages");
-        Files.createDirectories(baseUploadPath);
-
-        // 3. Create menu-specific directory
-        Path menuUploadPath = baseUploadPath.resolve(menuId.toString());
-        Files.createDirectories(menuUploadPath);
-
-        // 4. Generate unique filename with timestamp and original extension
-        String originalFilename = StringUtils.cleanPath(menuImage.getOriginalFilename());
-        String fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
-        String newFilename = System.currentTimeMillis() + fileExtension;
-
-        // 5. Save the file
-        Path filePath = menuUploadPath.resolve(newFilename);
+        // 2. Stream the file into uploads/menuImages/{menuId}/ (validates the image type)
+        String menuImagePath;
         try {
-            Files.copy(menuImage.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            menuImagePath = imageStorageService.storeImage(menuImage, "menuImages/" + menuId);
         } catch (IOException e) {
-            throw new IOException("Failed to save image file: " + e.getMessage());
+            throw new IOException("Failed to save image file: " + e.getMessage(), e);
         }
 
-        // 6. Delete old menu image if it exists and is not the default
+        // 3. Update menu image path in database
         String oldMenuImage = menu.getMenuImage();
-        if (oldMenuImage != null && !oldMenuImage.equals("default_menu.png")) {
-            try {
-                Path oldFilePath = Paths.get("").toAbsolutePath().resolve(oldMenuImage.substring(1)); // Remove leading slash
-                Files.deleteIfExists(oldFilePath);
-            } catch (IOException e) {
-                System.err.println("Failed to delete old menu image: " + e.getMessage());
-            }
-        }
-
-        // 7. Update menu image path in database
-        String menuImagePath = "/uploads/menuImages/" + menuId + "/" + newFilename;
         menu.setMenuImage(menuImagePath);
         menu.setUpdatedAt(new Date());
 
-        // 8. Save to database
         try {
             menuRepository.save(menu);
-            return menuImagePath; // Return the path
         } catch (Exception e) {
-            // If database save fails, try to delete the uploaded file
-            try {
-                Files.deleteIfExists(filePath);
-            } catch (IOException deleteError) {
-                System.err.println("Failed to delete uploaded file after database error: " + deleteError.getMessage());
+            // If database save fails, drop the uploaded file unless the menu already used it
+            if (!menuImagePath.equals(oldMenuImage)) {
+                imageStorageService.deleteQuietly(menuImagePath);
             }
             throw new RuntimeException("Failed to update menu with new image: " + e.getMessage());
         }
+
+        // 4. Delete the old menu image if it is not the default (same content keeps the same file)
+        if (oldMenuImage != null && !oldMenuImage.equals(menuImagePath)) {
+            imageStorageService.deleteQuietly(oldMenuImage);
+        }
+        eventPublisher.publishEvent(new MenuChangedEvent(menuId));
+        return menuImagePath;
     }
 
     public void createMenu(MenuDTO menuDTO) {
@@ -142,16 +133,19 @@ public class MenuService {
         String menuUrl = viteHost + "/menu/"+ menu.getId();
         menu.setMenuUrl(menuUrl);
 
-        // Генерирай QR код
+        // Генерирай QR код (пази се в отделна таблица, не в реда на менюто)
         try {
-            byte[] qrCodeImage = QRCodeGenerator.generateQRCodeImage(menuUrl, 200, 200);
-            menu.setQrCodeImage(qrCodeImage);
+            byte[] qrCodeImage = QRCodeGenerator.generateQRCodeImage(menuUrl, MENU_QR_SIZE, MENU_QR_SIZE);
+            menuQRCodeRepository.save(new MenuQRCode(menu.getId(), menuUrl, qrCodeImage, new Date()));
+            qrCodeCacheService.put(menuQRCodeKey(menuUrl), qrCodeImage);
         } catch (Exception e) {
             throw new RuntimeException("Failed to generate QR Code", e);
         }
 
-        // Обнови записа с URL и QR кода
+        // Обнови записа с URL
         menuRepository.save(menu);
+        // Менюто се появява в списъка на ресторанта
+        eventPublisher.publishEvent(new MenuChangedEvent(menu.getId()));
     }
 
     public List<MenuDTO> getMenusByRestaurantId(Long restorantId) {
@@ -164,7 +158,7 @@ public class MenuService {
                         .createdAt(menu.getCreatedAt())
                         .updatedAt(menu.getUpdatedAt())
                         .menuUrl(menu.getMenuUrl())
-                        .qrCodeImage(menu.getQrCodeImage())
+                        .qrCodeUrl(MenuMapper.qrCodeUrl(menu.getId()))
                         .menuImage(menu.getMenuImage())
                         .textColor(menu.getTextColor())
                         .build()
@@ -193,26 +187,57 @@ public class MenuService {
         
         menu.setUpdatedAt(new Date());
         menuRepository.save(menu);
+        eventPublisher.publishEvent(new MenuChangedEvent(id));
     }
 
     public void deleteMenu(Long id) {
         Menu menu = menuRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Menu not found"));
 
+        menuQRCodeRepository.findById(id).ifPresent(menuQRCodeRepository::delete);
         menuRepository.delete(menu);
+        eventPublisher.publishEvent(new MenuChangedEvent(id));
     }
 
-    public byte[] generateQRCodeForMenu(Long id) {
+    public QRCodeCacheService.CachedQRCode generateQRCodeForMenu(Long id) {
         Menu menu = menuRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Menu not found"));
 
         String menuUrl = viteHost + "/menu/"+ menu.getId();
+        QRCodeCacheService.QRCodeKey key = menuQRCodeKey(menuUrl);
+
+        QRCodeCacheService.CachedQRCode cached = qrCodeCacheService.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Reuse the stored image, unless the URL has changed since it was rendered
+        MenuQRCode stored = menuQRCodeRepository.findById(id).orElse(null);
+        if (stored != null && menuUrl.equals(stored.getMenuUrl()) && menuUrl.equals(menu.getMenuUrl())) {
+            return qrCodeCacheService.put(key, stored.getImage());
+        }
+
+        byte[] qrCodeImage;
         try {
-            return QRCodeGenerator.generateQRCodeImage(menuUrl, 200, 200);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
+            qrCodeImage = QRCodeGenerator.generateQRCodeImage(menuUrl, MENU_QR_SIZE, MENU_QR_SIZE);
+        } catch (WriterException | IOException e) {
+            throw new RuntimeException("Failed to generate QR Code for menu " + id, e);
         }
+
+        String oldMenuUrl = menu.getMenuUrl();
+        if (oldMenuUrl != null && !oldMenuUrl.equals(menuUrl)) {
+            qrCodeCacheService.evict(oldMenuUrl);
+        }
+        menu.setMenuUrl(menuUrl);
+        menuRepository.save(menu);
+        menuQRCodeRepository.save(new MenuQRCode(id, menuUrl, qrCodeImage, new Date()));
+        eventPublisher.publishEvent(new MenuChangedEvent(id));
+
+        return qrCodeCacheService.put(key, qrCodeImage);
+    }
+
+    private QRCodeCacheService.QRCodeKey menuQRCodeKey(String menuUrl) {
+        return new QRCodeCacheService.QRCodeKey(menuUrl, MENU_QR_SIZE, MENU_QR_MARGIN, MENU_QR_ERROR_CORRECTION, "png");
     }
     public MenuDTO getMenuById(Long id) {
         Menu menu = menuRepository.findById(id)
@@ -227,6 +252,7 @@ public class MenuService {
         menu.setTextColor(textColor);
         menu.setUpdatedAt(new Date());
         Menu updatedMenu = menuRepository.save(menu);
+        eventPublisher.publishEvent(new MenuChangedEvent(id));
         
         return menuMapper.toDto(updatedMenu);
     }
@@ -238,6 +264,7 @@ public class MenuService {
         menu.setCategory(newName);
         menu.setUpdatedAt(new Date());
         Menu updatedMenu = menuRepository.save(menu);
+        eventPublisher.publishEvent(new MenuChangedEvent(id));
         
         return menuMapper.toDto(updatedMenu);
     }
@@ -261,43 +288,21 @@ public class MenuService {
             throw new RuntimeException("No file uploaded");
         }
 
-        // Validate file type
-        String contentType = file.getContentType();
-        if (contentType == null || !contentType.startsWith("image/")) {
-            throw new IllegalArgumentException("Only image files are allowed");
-        }
-
         // Save the old default image path to update products later
         String oldDefaultImage = menu.getDefaultProductImage();
 
         try {
-            // 1) Create directory structure
-            Path uploadPath = Paths.get("uploads", menuId.toString());
-            
-            // Ensure the parent directory exists
-            Files.createDirectories(uploadPath);
-            
-            System.out.println("Created directory: " + uploadPath.toAbsolutePath());
-
-            // 2) Generate filename with extension
-            String originalFilename = file.getOriginalFilename();
-            String extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-            String filename = "default_product" + extension;
-            
-            // 3) Save the file
-            Path filePath = uploadPath.resolve(filename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-            
-            System.out.println("Saved file to: " + filePath.toAbsolutePath());
-
-            // 4) Create the URL with the full host address
-            String newDefaultImage = "http://localhost:8080/uploads/" + menuId + "/default_product" + extension;
-
-            // 5) Update the menu with the new default image
+            // 1) Stream the file into uploads/defaultProductImages/{menuId}/
+            String storedPath = imageStorageService.storeImage(file, "defaultProductImages/" + menuId);
+
+            // 2) Products store the default image as a full URL
+            String newDefaultImage = serverHost + storedPath;
+
+            // 3) Update the menu with the new default image
             menu.setDefaultProductImage(newDefaultImage);
             Menu updatedMenu = menuRepository.save(menu);
 
-            // 6) Find all products using the old default image and update them
+            // 4) Find all products using the old default image and update them
             if (oldDefaultImage != null && !oldDefaultImage.isBlank()) {
                 List<Product> productsToUpdate = productRepository.findByMenuAndProductImage(menu, oldDefaultImage);
                 
@@ -311,6 +316,8 @@ public class MenuService {
                 }
             }
 
+            eventPublisher.publishEvent(new MenuChangedEvent(menuId));
+
             return convertToDTO(updatedMenu);
         } catch (IOException e) {
             throw new RuntimeException("Failed to save default product image: " + e.getMessage(), e);
@@ -0,0 +1,154 @@
+package com.example.qr_menu.services;
+
+import com.example.qr_menu.dto.CategoryDTO;
+import com.example.qr_menu.dto.MenuDTO;
+import com.example.qr_menu.dto.MenuSnapshotDTO;
+import com.example.qr_menu.dto.ProductDTO;
+import com.example.qr_menu.entities.Menu;
+import com.example.qr_menu.events.MenuChangedEvent;
+import com.example.qr_menu.exceptions.ResourceNotFoundException;
+import com.example.qr_menu.repositories.CategoryRepository;
+import com.example.qr_menu.repositories.MenuRepository;
+import com.example.qr_menu.repositories.ProductRepository;
+import com.example.qr_menu.security.MenuMapper;
+import com.example.qr_menu.utils.AfterCommit;
+import com.example.qr_menu.utils.CacheStats;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps a pre-serialized JSON snapshot of every public menu (menu, categories,
+ * products and their allergens) so a QR scan can be answered without touching the database.
+ * Snapshots are built lazily on first read and dropped whenever a {@link MenuChangedEvent} arrives.
+ * The ETag is a hash of the snapshot content, so it stays the same across rebuilds and instances
+ * as long as the menu does not change.
+ */
+@Service
+public class MenuSnapshotService {
+
+    private final MenuRepository menuRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final MenuMapper menuMapper;
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentHashMap<Long, MenuSnapshot> snapshots = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so a snapshot built from stale data is never published
+    private final ConcurrentHashMap<Long, Long> generations = new ConcurrentHashMap<>();
+    private final AtomicLong globalGeneration = new AtomicLong();
+    private final CacheStats stats = new CacheStats();
+
+    public MenuSnapshotService(MenuRepository menuRepository,
+                               CategoryRepository categoryRepository,
+                               ProductRepository productRepository,
+                               ProductService productService,
+                               MenuMapper menuMapper,
+                               ObjectMapper objectMapper) {
+        this.menuRepository = menuRepository;
+        this.categoryRepository = categoryRepository;
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.menuMapper = menuMapper;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Returns the cached snapshot for the menu, building it on a cache miss.
+     */
+    public MenuSnapshot getSnapshot(Long menuId) {
+        MenuSnapshot cached = snapshots.get(menuId);
+        if (cached != null) {
+            stats.hit();
+            return cached;
+        }
+        stats.miss();
+
+        long generation = generations.getOrDefault(menuId, 0L);
+        long global = globalGeneration.get();
+        MenuSnapshot built = buildSnapshot(menuId);
+
+        snapshots.compute(menuId, (id, existing) ->
+                generations.getOrDefault(id, 0L) == generation && globalGeneration.get() == global
+                        ? built
+                        : existing);
+        return built;
+    }
+
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    @EventListener
+    public void onMenuChanged(MenuChangedEvent event) {
+        AfterCommit.invalidate(() -> invalidate(event));
+    }
+
+    private void invalidate(MenuChangedEvent event) {
+        if (event.affectsAllMenus()) {
+            globalGeneration.incrementAndGet();
+            snapshots.clear();
+            return;
+        }
+        snapshots.compute(event.getMenuId(), (id, existing) -> {
+            generations.merge(id, 1L, Long::sum);
+            return null;
+        });
+    }
+
+    private MenuSnapshot buildSnapshot(Long menuId) {
+        Menu menu = menuRepository.findById(menuId)
+                .orElseThrow(() -> new ResourceNotFoundException("Menu not found"));
+
+        MenuDTO menuDTO = menuMapper.toDto(menu);
+        menuDTO.setDefaultProductImage(menu.getDefaultProductImage());
+
+        List<CategoryDTO> categories = categoryRepository.findByMenuId(menuId).stream()
+                .map(category -> CategoryDTO.builder()
+                        .id(category.getId())
+                        .name(category.getName())
+                        .menuId(menuId)
+                        .categoryImage(category.getCategoryImage())
+                        .build())
+                .collect(Collectors.toList());
+
+        List<ProductDTO> products = productRepository.findByMenuIdWithAllergens(menuId).stream()
+                .map(productService::convertToDto)
+                .collect(Collectors.toList());
+
+        // The persisted content version, so a rebuild of unchanged content keeps its ETag
+        long version = menu.getContentVersion();
+        MenuSnapshotDTO snapshotDTO = MenuSnapshotDTO.builder()
+                .version(version)
+                .menu(menuDTO)
+                .categories(categories)
+                .products(products)
+                .build();
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(snapshotDTO);
+            String etag = "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+            return new MenuSnapshot(version, etag, json);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize menu snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class MenuSnapshot {
+        private final long version;
+        private final String etag;
+        private final byte[] json;
+    }
+}
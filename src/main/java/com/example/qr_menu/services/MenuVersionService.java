@@ -0,0 +1,225 @@
+package com.example.qr_menu.services;
+
+import com.example.qr_menu.events.MenuChangedEvent;
+import com.example.qr_menu.repositories.CategoryRepository;
+import com.example.qr_menu.repositories.MenuRepository;
+import com.example.qr_menu.utils.AfterCommit;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * HTTP validators for the public menu reads. Every menu carries a persisted content version
+ * ({@code Menu.contentVersion}, epoch millis) that is bumped whenever a {@link MenuChangedEvent}
+ * arrives - i.e. on writes to the menu, its categories or its products. The versions are cached
+ * here, so a conditional GET for an unchanged menu is answered with 304 without database access.
+ * Cached stamps expire after a short TTL, so writes made on another instance are picked up
+ * within that time; unknown menus and restaurants without menus are never cached, and each
+ * cache holds at most a fixed number of entries.
+ */
+@Service
+public class MenuVersionService {
+
+    private final MenuRepository menuRepository;
+    private final CategoryRepository categoryRepository;
+    private final CacheControl cacheControl;
+
+    private final long stampTtlMillis;
+    private final int maxEntries;
+
+    private final Map<Long, CachedStamp> menuStamps = new ConcurrentHashMap<>();
+    private final Map<Long, CachedStamp> restaurantStamps = new ConcurrentHashMap<>();
+    // A category never moves to another menu, so this mapping is not invalidated
+    private final Map<Long, Long> categoryMenus = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so a load that raced with a write is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public MenuVersionService(MenuRepository menuRepository,
+                              CategoryRepository categoryRepository,
+                              @Value("${menus.http-cache.max-age-seconds:30}") long maxAgeSeconds,
+                              @Value("${menus.http-cache.stamp-ttl-seconds:30}") long stampTtlSeconds,
+                              @Value("${menus.http-cache.max-entries:10000}") int maxEntries) {
+        this.menuRepository = menuRepository;
+        this.categoryRepository = categoryRepository;
+        this.stampTtlMillis = Duration.ofSeconds(stampTtlSeconds).toMillis();
+        this.maxEntries = maxEntries;
+        // Browsers and CDNs may reuse a response this long, then revalidate with the ETag
+        this.cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic();
+    }
+
+    /**
+     * Stamp of a single menu, or null if the menu does not exist.
+     */
+    public Stamp menuStamp(Long menuId) {
+        Stamp cached = cached(menuStamps, menuId);
+        if (cached != null) {
+            return cached;
+        }
+        long loadGeneration = generation.get();
+        Stamp loaded = menuRepository.findContentVersionById(menuId)
+                .map(version -> new Stamp("\"m" + menuId + "-" + version + "\"", version))
+                .orElse(null);
+        if (loaded != null) {
+            store(menuStamps, menuId, loaded, loadGeneration);
+        }
+        return loaded;
+    }
+
+    /**
+     * Stamp of the menu a category belongs to, or null if the category does not exist.
+     */
+    public Stamp categoryStamp(Long categoryId) {
+        Long menuId = categoryMenus.get(categoryId);
+        if (menuId == null) {
+            menuId = categoryRepository.findMenuIdById(categoryId).orElse(null);
+            if (menuId == null) {
+                return null;
+            }
+            if (categoryMenus.size() < maxEntries) {
+                categoryMenus.put(categoryId, menuId);
+            }
+        }
+        return menuStamp(menuId);
+    }
+
+    /**
+     * Stamp of a restaurant's menu list: changes when any of its menus changes, is added or removed.
+     */
+    public Stamp restaurantStamp(Long restaurantId) {
+        Stamp cached = cached(restaurantStamps, restaurantId);
+        if (cached != null) {
+            return cached;
+        }
+        long loadGeneration = generation.get();
+        long hash = 17;
+        long lastModified = 0;
+        List<Object[]> versions = menuRepository.findContentVersionsByRestorantId(restaurantId);
+        for (Object[] row : versions) {
+            long version = (Long) row[1];
+            hash = 31 * (31 * hash + (Long) row[0]) + version;
+            lastModified = Math.max(lastModified, version);
+        }
+        Stamp loaded = new Stamp("\"r" + restaurantId + "-" + versions.size() + "-" + Long.toHexString(hash) + "\"",
+                lastModified);
+        // An unknown restaurant or one without menus is not cached, so arbitrary IDs cannot grow the map
+        if (!versions.isEmpty()) {
+            store(restaurantStamps, restaurantId, loaded, loadGeneration);
+        }
+        return loaded;
+    }
+
+    /**
+     * Answers 304 if the client already has this version, otherwise builds the body.
+     * Both responses carry the validators and Cache-Control. Without a stamp (unknown
+     * menu) the body is built as usual, so the caller's own 404 handling applies.
+     * The same version backs several endpoints, so {@code representation} names the one
+     * being served (resource kind plus normalized query) and is part of the ETag; a strong
+     * ETag must never match a different body.
+     */
+    public <T> ResponseEntity<T> conditional(Stamp stamp, String representation, WebRequest request, Supplier<T> body) {
+        if (stamp == null) {
+            return ResponseEntity.ok(body.get());
+        }
+        String etag = stamp.etagFor(representation);
+        long lastModified = stamp.getLastModified() > 0 ? stamp.getLastModified() : -1;
+        if (request.checkNotModified(etag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(cacheControl)
+                    .eTag(etag)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(cacheControl)
+                .eTag(etag)
+                .lastModified(lastModified)
+                .body(body.get());
+    }
+
+    public CacheControl getCacheControl() {
+        return cacheControl;
+    }
+
+    @EventListener
+    public void onMenuChanged(MenuChangedEvent event) {
+        long now = System.currentTimeMillis();
+        if (event.affectsAllMenus()) {
+            menuRepository.bumpAllContentVersions(now);
+        } else {
+            menuRepository.bumpContentVersion(event.getMenuId(), now);
+        }
+        AfterCommit.invalidate(() -> invalidate(event));
+    }
+
+    private void invalidate(MenuChangedEvent event) {
+        generation.incrementAndGet();
+        if (event.affectsAllMenus()) {
+            menuStamps.clear();
+        } else {
+            menuStamps.remove(event.getMenuId());
+        }
+        // Menu lists are cheap to re-stamp, and the event does not say which restaurant it was
+        restaurantStamps.clear();
+    }
+
+    private static Stamp cached(Map<Long, CachedStamp> cache, Long key) {
+        CachedStamp entry = cache.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            cache.remove(key, entry);
+            return null;
+        }
+        return entry.stamp;
+    }
+
+    private void store(Map<Long, CachedStamp> cache, Long key, Stamp stamp, long loadGeneration) {
+        // A write happened while loading; the loaded stamp may already be stale
+        if (generation.get() != loadGeneration) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (cache.size() >= maxEntries && !cache.containsKey(key)) {
+            cache.values().removeIf(entry -> entry.expiresAt <= now);
+            if (cache.size() >= maxEntries) {
+                return;
+            }
+        }
+        cache.put(key, new CachedStamp(stamp, now + stampTtlMillis));
+    }
+
+    private static final class CachedStamp {
+        private final Stamp stamp;
+        private final long expiresAt;
+
+        CachedStamp(Stamp stamp, long expiresAt) {
+            this.stamp = stamp;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stamp {
+        private final String etag;
+        private final long lastModified;
+
+        // "m5-123" + "categories" -> "m5-123-categories"
+        public String etagFor(String representation) {
+            return etag.substring(0, etag.length() - 1) + "-" + representation + "\"";
+        }
+    }
+}
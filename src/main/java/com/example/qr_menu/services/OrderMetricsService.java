@@ -0,0 +1,34 @@
+package com.example.qr_menu.services;
+
+import com.example.qr_menu.events.OrderChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Counts placed orders per restaurant ({@code orders.created{restaurant=...}}).
+ * Counting happens after commit, so rolled-back orders are never reported.
+ */
+@Service
+public class OrderMetricsService {
+
+    private final MeterRegistry meterRegistry;
+
+    public OrderMetricsService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (event.getType() != OrderChangedEvent.Type.ORDER_CREATED || event.getRestaurantId() == null) {
+            return;
+        }
+        // The registry returns the existing counter for a known tag set
+        Counter.builder("orders.created")
+                .description("Orders placed")
+                .tag("restaurant", String.valueOf(event.getRestaurantId()))
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -1,15 +1,27 @@
 package com.example.qr_menu.services;
 
 import com.example.qr_menu.dto.OrderDTO;
+import com.example.qr_menu.dto.OrderSliceDTO;
 import com.example.qr_menu.entities.*;
+import com.example.qr_menu.events.OrderChangedEvent;
+import com.example.qr_menu.exceptions.ResourceNotFoundException;
 import com.example.qr_menu.repositories.*;
+import com.example.qr_menu.utils.OrderCursor;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -17,22 +29,31 @@ import java.util.stream.Collectors;
 @Service
 public class OrderService {
 
+    // Upper bound for keyset pages of order listings
+    static final int MAX_SLICE_SIZE = 100;
+
     private final OrderRepository orderRepository;
     private final AccountRepository accountRepository;
     private final RestaurantRepository restorantRepository;
     private final ProductRepository productRepository;
     private final OrderProductRepository orderProductRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductSalesRollupService productSalesRollupService;
 
     public OrderService(OrderRepository orderRepository, AccountRepository accountRepository,
                         RestaurantRepository restorantRepository, ProductRepository productRepository,
-                        OrderProductRepository orderProductRepository) {
+                        OrderProductRepository orderProductRepository, ApplicationEventPublisher eventPublisher,
+                        ProductSalesRollupService productSalesRollupService) {
         this.orderRepository = orderRepository;
         this.accountRepository = accountRepository;
         this.restorantRepository = restorantRepository;
         this.productRepository = productRepository;
         this.orderProductRepository = orderProductRepository;
+        this.eventPublisher = eventPublisher;
+        this.productSalesRollupService = productSalesRollupService;
     }
 
+    @Timed(value = "orders.create", percentiles = {0.5, 0.95, 0.99})
     @Transactional
     public Order createOrder(OrderDTO orderDTO) {
         // Validate required fields
@@ -48,13 +69,22 @@ public class OrderService {
         Restorant restorant = restorantRepository.findById(orderDTO.getRestorantId())
                 .orElseThrow(() -> new RuntimeException("Restaurant not found"));
 
+        // Merge repeated lines for the same product and load all products with one query
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        if (orderDTO.getProducts() != null) {
+            for (OrderDTO.ProductOrderDTO productOrderDTO : orderDTO.getProducts()) {
+                quantities.merge(productOrderDTO.getProductId(), productOrderDTO.getQuantity(), Integer::sum);
+            }
+        }
+        Map<Long, Product> products = quantities.isEmpty() ? new HashMap<>()
+                : productRepository.findAllById(quantities.keySet()).stream()
+                        .collect(Collectors.toMap(Product::getId, product -> product));
+
         double totalPrice = 0.0;
-        Set<OrderProduct> orderProducts = new HashSet<>();
+        Set<OrderProduct> orderProducts = new LinkedHashSet<>();
 
-        // Create and save order first
         Order order = Order.builder()
                 .orderStatus(orderDTO.getOrderStatus() != null ? orderDTO.getOrderStatus() : Order.OrderStatus.PENDING)
-                .totalPrice(orderDTO.getTotalPrice() != null ? orderDTO.getTotalPrice() : 0.0)
                 .account(account)
                 .restorant(restorant)
                 .orderTime(new Date())
@@ -64,40 +94,45 @@ public class OrderService {
                 .customerPhone(orderDTO.getCustomerPhone())
                 .specialRequests(orderDTO.getSpecialRequests())
                 .build();
-        
-        Order savedOrder = orderRepository.save(order);
 
-        // Process order products
-        if (orderDTO.getProducts() != null && !orderDTO.getProducts().isEmpty()) {
-            Date now = new Date();
-            
-            for (OrderDTO.ProductOrderDTO productOrderDTO : orderDTO.getProducts()) {
-                Product product = productRepository.findById(productOrderDTO.getProductId())
-                        .orElseThrow(() -> new RuntimeException("Product not found with ID: " + productOrderDTO.getProductId()));
-
-                double priceAtOrder = product.getProductPrice();
-                totalPrice += priceAtOrder * productOrderDTO.getQuantity();
-                
-                // Create order-product relationship
-                OrderProductId orderProductId = new OrderProductId(savedOrder.getId(), product.getId());
-                OrderProduct orderProduct = OrderProduct.builder()
-                        .id(orderProductId)
-                        .order(savedOrder)
-                        .product(product)
-                        .quantity(productOrderDTO.getQuantity())
-                        .createdAt(now)
-                        .updatedAt(now)
-                        .build();
-                
-                orderProducts.add(orderProduct);
-                orderProductRepository.save(orderProduct);
+        Date now = new Date();
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Product product = products.get(line.getKey());
+            if (product == null) {
+                throw new RuntimeException("Product not found with ID: " + line.getKey());
             }
-            
-            // Update total price
-            savedOrder.setTotalPrice(totalPrice);
-            savedOrder = orderRepository.save(savedOrder);
+
+            double priceAtOrder = product.getProductPrice();
+            totalPrice += priceAtOrder * line.getValue();
+
+            // orderId is filled in from the order through @MapsId when the order is persisted
+            orderProducts.add(OrderProduct.builder()
+                    .id(new OrderProductId(null, product.getId()))
+                    .order(order)
+                    .product(product)
+                    .quantity(line.getValue())
+                    .unitPrice(priceAtOrder)
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build());
         }
 
+        // Without products the client supplied total is kept, as before
+        order.setTotalPrice(quantities.isEmpty()
+                ? (orderDTO.getTotalPrice() != null ? orderDTO.getTotalPrice() : 0.0)
+                : totalPrice);
+
+        // One insert for the order; the lines are cascaded and sent as a JDBC batch
+        Order savedOrder = orderRepository.save(order);
+        if (savedOrder.getOrderStatus() != Order.OrderStatus.CANCELLED) {
+            productSalesRollupService.recordOrder(savedOrder, orderProducts);
+        }
+
+        List<OrderDTO.ProductOrderDTO> productDTOs = orderProducts.stream()
+                .map(OrderService::toProductOrderDTO)
+                .collect(Collectors.toList());
+        eventPublisher.publishEvent(OrderChangedEvent.created(toOrderDTO(savedOrder, productDTOs)));
+
         return savedOrder;
     }
 
@@ -131,15 +166,7 @@ public class OrderService {
         List<OrderDTO.ProductOrderDTO> productDTOs = new ArrayList<>();
         
         for (OrderProduct orderProduct : orderProducts) {
-            Product product = orderProduct.getProduct();
-            
-            productDTOs.add(OrderDTO.ProductOrderDTO.builder()
-                    .productId(product.getId())
-                    .productName(product.getProductName())
-                    .productImage(product.getProductImage())
-                    .quantity(orderProduct.getQuantity())
-                    .productPriceAtOrder(product.getProductPrice())
-                    .build());
+            productDTOs.add(toProductOrderDTO(orderProduct));
         }
         
         // If no products found (shouldn't happen), add dummy for backward compatibility
@@ -158,10 +185,162 @@ public class OrderService {
         return orderDTO;
     }
 
+    @Transactional(readOnly = true)
+    public Page<OrderDTO> getOrdersByAccountId(Long accountId, Pageable pageable) {
+        return toOrderDTOPage(orderRepository.findByAccountId(accountId, pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<OrderDTO> getOrdersByRestaurantId(Long restaurantId, Pageable pageable) {
+        return toOrderDTOPage(orderRepository.findByRestaurantId(restaurantId, pageable));
+    }
+
+    /**
+     * Keyset page of a restaurant's orders, newest first. A null cursor returns the first page.
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    public OrderSliceDTO scrollOrdersByRestaurantId(Long restaurantId, String cursor, int size) {
+        OrderCursor after = OrderCursor.decode(cursor);
+        Limit limit = sliceLimit(size);
+        return toOrderSlice(after == null
+                ? orderRepository.findLatestByRestaurantId(restaurantId, limit)
+                : orderRepository.findByRestaurantIdBefore(restaurantId, after.getOrderTime(), after.getId(), limit), limit);
+    }
+
+    @Transactional(readOnly = true)
+    public OrderSliceDTO scrollOrdersByAccountId(Long accountId, String cursor, int size) {
+        OrderCursor after = OrderCursor.decode(cursor);
+        Limit limit = sliceLimit(size);
+        return toOrderSlice(after == null
+                ? orderRepository.findLatestByAccountId(accountId, limit)
+                : orderRepository.findByAccountIdBefore(accountId, after.getOrderTime(), after.getId(), limit), limit);
+    }
+
+    @Transactional(readOnly = true)
+    public OrderSliceDTO scrollOrders(String cursor, int size) {
+        OrderCursor after = OrderCursor.decode(cursor);
+        Limit limit = sliceLimit(size);
+        return toOrderSlice(after == null
+                ? orderRepository.findLatest(limit)
+                : orderRepository.findBefore(after.getOrderTime(), after.getId(), limit), limit);
+    }
+
+    // One row more than the page size tells whether another page follows, without a count
+    private static Limit sliceLimit(int size) {
+        return Limit.of(Math.max(1, Math.min(size, MAX_SLICE_SIZE)) + 1);
+    }
+
+    private OrderSliceDTO toOrderSlice(List<Order> orders, Limit limit) {
+        int size = limit.max() - 1;
+        boolean hasNext = orders.size() > size;
+        List<Order> page = hasNext ? orders.subList(0, size) : orders;
+
+        Map<Long, List<OrderDTO.ProductOrderDTO>> productsByOrder = loadOrderLines(page);
+        List<OrderDTO> content = page.stream()
+                .map(order -> toOrderDTO(order, productsByOrder.getOrDefault(order.getId(), new ArrayList<>())))
+                .collect(Collectors.toList());
+        return OrderSliceDTO.builder()
+                .content(content)
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? OrderCursor.encode(page.get(page.size() - 1)) : null)
+                .build();
+    }
+
+    /**
+     * Maps a page of orders (account and restaurant already fetched) to DTOs,
+     * loading the line items of the whole page with a single projection query.
+     */
+    private Page<OrderDTO> toOrderDTOPage(Page<Order> orders) {
+        Map<Long, List<OrderDTO.ProductOrderDTO>> productsByOrder = loadOrderLines(orders.getContent());
+        return orders.map(order -> toOrderDTO(order, productsByOrder.getOrDefault(order.getId(), new ArrayList<>())));
+    }
+
+    private Map<Long, List<OrderDTO.ProductOrderDTO>> loadOrderLines(List<Order> orders) {
+        List<Long> orderIds = orders.stream()
+                .map(Order::getId)
+                .collect(Collectors.toList());
+
+        Map<Long, List<OrderDTO.ProductOrderDTO>> productsByOrder = new HashMap<>();
+        if (!orderIds.isEmpty()) {
+            for (OrderProductRepository.OrderLineView line : orderProductRepository.findLinesByOrderIds(orderIds)) {
+                productsByOrder.computeIfAbsent(line.getOrderId(), id -> new ArrayList<>())
+                        .add(OrderDTO.ProductOrderDTO.builder()
+                                .productId(line.getProductId())
+                                .productName(line.getProductName())
+                                .productImage(line.getProductImage())
+                                .quantity(line.getQuantity())
+                                .productPriceAtOrder(line.getUnitPrice())
+                                .build());
+            }
+        }
+        return productsByOrder;
+    }
+
+    /**
+     * Header fields of an order; account and restaurant must already be loaded.
+     */
+    public static OrderDTO toOrderDTO(Order order, List<OrderDTO.ProductOrderDTO> products) {
+        return OrderDTO.builder()
+                .id(order.getId())
+                .accountId(order.getAccount().getId())
+                .restorantId(order.getRestorant().getId())
+                .restorantName(order.getRestorant().getRestorantName())
+                .orderStatus(order.getOrderStatus())
+                .orderTime(order.getOrderTime())
+                .totalPrice(order.getTotalPrice())
+                .customerName(order.getCustomerName())
+                .customerEmail(order.getCustomerEmail())
+                .customerPhone(order.getCustomerPhone())
+                .specialRequests(order.getSpecialRequests())
+                .products(products)
+                .build();
+    }
+
+    private static OrderDTO.ProductOrderDTO toProductOrderDTO(OrderProduct orderProduct) {
+        Product product = orderProduct.getProduct();
+        return OrderDTO.ProductOrderDTO.builder()
+                .productId(product.getId())
+                .productName(product.getProductName())
+                .productImage(product.getProductImage())
+                .quantity(orderProduct.getQuantity())
+                .productPriceAtOrder(orderProduct.getUnitPrice() != null
+                        ? orderProduct.getUnitPrice()
+                        : product.getProductPrice())
+                .build();
+    }
+
+    /**
+     * Changes the status of an order, keeping the sales rollup in step with cancellations.
+     * The order is re-read under a row lock, so two concurrent cancels (or a cancel racing
+     * {@link #deleteOrder}) cannot both see it as active and reverse the rollup twice.
+     */
+    @Transactional
+    public Order updateOrderStatus(Long orderId, Order.OrderStatus newStatus) {
+        Order order = orderRepository.findByIdForUpdate(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + orderId));
+        Order.OrderStatus oldStatus = order.getOrderStatus();
+        if (oldStatus != Order.OrderStatus.CANCELLED && newStatus == Order.OrderStatus.CANCELLED) {
+            productSalesRollupService.reverseOrder(order);
+        } else if (oldStatus == Order.OrderStatus.CANCELLED && newStatus != Order.OrderStatus.CANCELLED) {
+            productSalesRollupService.recordOrder(order, orderProductRepository.findByOrderId(order.getId()));
+        }
+
+        order.setOrderStatus(newStatus);
+        Order savedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderChangedEvent.statusChanged(toOrderDTO(savedOrder, null)));
+        return savedOrder;
+    }
+
     @Transactional
     public boolean deleteOrder(Long orderId) {
-        if (orderRepository.existsById(orderId)) {
-            orderRepository.deleteById(orderId);
+        Optional<Order> order = orderRepository.findByIdForUpdate(orderId);
+        if (order.isPresent()) {
+            if (order.get().getOrderStatus() != Order.OrderStatus.CANCELLED) {
+                productSalesRollupService.reverseOrder(order.get());
+            }
+            orderRepository.delete(order.get());
             return true;
         } else {
             return false;
@@ -192,13 +371,7 @@ public class OrderService {
         // Get order products
         List<OrderProduct> orderProducts = orderProductRepository.findByOrderId(order.getId());
         List<OrderDTO.ProductOrderDTO> productDTOs = orderProducts.stream()
-            .map(op -> OrderDTO.ProductOrderDTO.builder()
-                .productId(op.getProduct().getId())
-                .productName(op.getProduct().getProductName())
-                .productImage(op.getProduct().getProductImage())
-                .quantity(op.getQuantity())
-                .productPriceAtOrder(op.getProduct().getProductPrice())
-                .build())
+            .map(OrderService::toProductOrderDTO)
             .collect(Collectors.toList());
         
         orderDTO.setProducts(productDTOs);
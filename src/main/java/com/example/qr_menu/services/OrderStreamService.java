@@ -0,0 +1,131 @@
+package com.example.qr_menu.services;
+
+import com.example.qr_menu.events.OrderChangedEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the open Server-Sent Events connections per restaurant and pushes
+ * {@link OrderChangedEvent}s to them.
+ * Connections are async servlet requests, so an idle subscriber holds no thread -
+ * only an emitter in the map. Events are fanned out on a small private pool so a
+ * slow client never delays the request that placed or updated the order.
+ */
+@Service
+public class OrderStreamService {
+
+    private final long timeoutMillis;
+    private final Map<Long, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+
+    public OrderStreamService(@Value("${orders.stream.timeout-ms:1800000}") long timeoutMillis,
+                              @Value("${orders.stream.heartbeat-seconds:25}") long heartbeatSeconds,
+                              @Value("${orders.stream.threads:2}") int threads) {
+        this.timeoutMillis = timeoutMillis;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "order-stream-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Comment lines keep proxies from closing idle connections and reveal dead clients
+        this.executor.scheduleAtFixedRate(this::sendHeartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    public SseEmitter subscribe(Long restaurantId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        emitters.compute(restaurantId, (id, subscribers) -> {
+            Set<SseEmitter> updated = subscribers != null ? subscribers : ConcurrentHashMap.<SseEmitter>newKeySet();
+            updated.add(emitter);
+            return updated;
+        });
+
+        Runnable remove = () -> unsubscribe(restaurantId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+
+        try {
+            emitter.send(SseEmitter.event().name("connected").data(restaurantId));
+        } catch (IOException e) {
+            remove.run();
+        }
+        return emitter;
+    }
+
+    public int subscriberCount(Long restaurantId) {
+        Set<SseEmitter> subscribers = emitters.get(restaurantId);
+        return subscribers == null ? 0 : subscribers.size();
+    }
+
+    /**
+     * Runs after the order transaction commits, so clients never see an order that was rolled back.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        Set<SseEmitter> subscribers = emitters.get(event.getRestaurantId());
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+
+        // Built once and shared - an SseEventBuilder must not be rendered more than once
+        Set<ResponseBodyEmitter.DataWithMediaType> message = SseEmitter.event()
+                .id(String.valueOf(event.getOrder().getId()))
+                .name(event.eventName())
+                .data(event.getOrder(), MediaType.APPLICATION_JSON)
+                .build();
+        executor.execute(() -> {
+            for (SseEmitter emitter : subscribers) {
+                send(event.getRestaurantId(), emitter, message);
+            }
+        });
+    }
+
+    private void sendHeartbeat() {
+        Set<ResponseBodyEmitter.DataWithMediaType> heartbeat = SseEmitter.event().comment("keep-alive").build();
+        emitters.forEach((restaurantId, subscribers) -> {
+            for (SseEmitter emitter : subscribers) {
+                send(restaurantId, emitter, heartbeat);
+            }
+        });
+    }
+
+    private void send(Long restaurantId, SseEmitter emitter, Set<ResponseBodyEmitter.DataWithMediaType> message) {
+        try {
+            emitter.send(message);
+        } catch (IOException | IllegalStateException e) {
+            // Client went away - drop it and release the async request
+            unsubscribe(restaurantId, emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void unsubscribe(Long restaurantId, SseEmitter emitter) {
+        emitters.computeIfPresent(restaurantId, (id, subscribers) -> {
+            subscribers.remove(emitter);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        emitters.values().forEach(subscribers -> subscribers.forEach(SseEmitter::complete));
+        emitters.clear();
+    }
+}
@@ -1,20 +1,48 @@
 package com.example.qr_menu.services;
 
 import com.example.qr_menu.dto.PopularProductDTO;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.logging.Logger;
 
 @Service
 public class PopularProductsService {
 
-    private static final Logger logger = Logger.getLogger(PopularProductsService.class.getName());
+    private static final Logger logger = LoggerFactory.getLogger(PopularProductsService.class);
+
+    // Reads the product_sales_daily rollup, so the cost depends on products x days, not on the number of orders
+    private static final String POPULAR_PRODUCTS_SQL =
+        "SELECT p.id, p.product_name as name, p.product_price as price, SUM(s.order_count) as order_count " +
+        "FROM product_sales_daily s " +
+        "JOIN products p ON p.id = s.product_id " +
+        "WHERE s.restorant_id = ? " +
+        "GROUP BY p.id, p.product_name, p.product_price " +
+        "HAVING SUM(s.order_count) > 0 " +
+        "ORDER BY order_count DESC, SUM(s.quantity) DESC " +
+        "LIMIT ?";
+
+    // Restaurants without sales yet still get their products listed, with a zero order count
+    private static final String RESTAURANT_PRODUCTS_SQL =
+        "SELECT p.id, p.product_name as name, p.product_price as price, 0 as order_count " +
+        "FROM products p " +
+        "JOIN menu m ON p.menu_id = m.id " +
+        "WHERE m.restorant_id = ? " +
+        "ORDER BY p.id " +
+        "LIMIT ?";
+
+    private static final RowMapper<PopularProductDTO> ROW_MAPPER = (rs, rowNum) -> new PopularProductDTO(
+        rs.getLong("id"),
+        rs.getString("name"),
+        rs.getBigDecimal("price"),
+        rs.getLong("order_count")
+    );
+
     private final JdbcTemplate jdbcTemplate;
 
     @Autowired
@@ -28,257 +56,17 @@ public class PopularProductsService {
      * @param limit Maximum number of products to return
      * @return List of popular products sorted by order count
      */
+    @Timed(value = "products.popular", percentiles = {0.5, 0.95, 0.99})
     public List<PopularProductDTO> getPopularProductsByRestaurantId(Long restaurantId, Integer limit) {
         // Default limit if null
         int actualLimit = limit != null && limit > 0 ? limit : 10;
 
-        logger.info("Fetching popular products for restaurant " + restaurantId + " with limit " + actualLimit);
-
-        // Before attempting complex queries, let's check data existence
-        checkDataExistence(restaurantId);
-
-        // Try multiple query variants to handle different database schemas
-        List<String> queries = new ArrayList<>();
-        
-        // Option 1: Using order_product (singular) table with restorant_id in orders
-        queries.add(
-            "SELECT p.id, p.product_name as name, p.product_price as price, COUNT(op.product_id) as order_count " +
-            "FROM products p " +
-            "JOIN order_product op ON p.id = op.product_id " +
-            "JOIN orders o ON op.order_id = o.id " +
-            "WHERE o.restorant_id = ? " +
-            "GROUP BY p.id, p.product_name, p.product_price " +
-            "ORDER BY order_count DESC " +
-            "LIMIT ?"
-        );
-        
-        // Option 2: Using menu join to find products from a specific restaurant
-        queries.add(
-            "SELECT p.id, p.product_name as name, p.product_price as price, 0 as order_count " +
-            "FROM products p " +
-            "JOIN menu m ON p.menu_id = m.id " +
-            "WHERE m.restorant_id = ? " +
-            "ORDER BY p.id " +
-            "LIMIT ?"
-        );
-        
-        // Option 3: Direct products lookup if they have menu_id that corresponds to restaurant's menu
-        queries.add(
-            "SELECT p.id, p.product_name as name, p.product_price as price, 0 as order_count " +
-            "FROM products p " +
-            "WHERE p.menu_id IN (SELECT id FROM menu WHERE restorant_id = ?) " +
-            "ORDER BY p.id " +
-            "LIMIT ?"
-        );
-        
-        // Try each query until one succeeds
-        for (String sql : queries) {
-            try {
-                logger.info("Trying query: " + sql);
-                
-                List<PopularProductDTO> results = jdbcTemplate.query(
-                    sql,
-                    (rs, rowNum) -> {
-                        PopularProductDTO dto = new PopularProductDTO(
-                            rs.getLong("id"),
-                            rs.getString("name"),
-                            rs.getBigDecimal("price"),
-                            rs.getLong("order_count")
-                        );
-                        logger.info("Found product: " + dto);
-                        return dto;
-                    },
-                    restaurantId, actualLimit
-                );
-                
-                if (results != null && !results.isEmpty()) {
-                    logger.info("Query succeeded, found " + results.size() + " popular products");
-                    return results;
-                }
-                
-                logger.info("Query returned no results, trying next option");
-            } catch (Exception e) {
-                logger.warning("Query failed: " + e.getMessage());
-                // Continue to the next query
-            }
-        }
-        
-        // If all regular queries failed, try direct database inspection and return some products
-        List<PopularProductDTO> fallbackProducts = getProductsDirectly(restaurantId, actualLimit);
-        if (!fallbackProducts.isEmpty()) {
-            logger.info("Returning " + fallbackProducts.size() + " products found directly from database");
-            return fallbackProducts;
-        }
-        
-        logger.info("No popular products data found for restaurant ID: " + restaurantId);
-        return new ArrayList<>();
-    }
-    
-    /**
-     * Check if data exists in the relevant tables for the given restaurant
-     */
-    private void checkDataExistence(Long restaurantId) {
-        try {
-            // Check tables existence
-            String checkTablesQuery = 
-                "SELECT table_name FROM information_schema.tables " +
-                "WHERE table_schema = 'public' AND table_name IN ('products', 'orders', 'order_product', 'menu')";
-            
-            List<String> tables = jdbcTemplate.queryForList(checkTablesQuery, String.class);
-            logger.info("Found tables: " + String.join(", ", tables));
-            
-            // Check if restaurant exists
-            try {
-                if (tables.contains("menu")) {
-                    String restaurantCheck = "SELECT COUNT(*) FROM menu WHERE restorant_id = ?";
-                    Integer menuCount = jdbcTemplate.queryForObject(restaurantCheck, Integer.class, restaurantId);
-                    logger.info("Restaurant " + restaurantId + " has " + menuCount + " menus");
-                }
-            } catch (Exception e) {
-                logger.warning("Error checking restaurant menus: " + e.getMessage());
-            }
-            
-            // Check products
-            try {
-                if (tables.contains("products")) {
-                    String productCheck = "SELECT COUNT(*) FROM products";
-                    Integer productCount = jdbcTemplate.queryForObject(productCheck, Integer.class);
-                    logger.info("Total products: " + productCount);
-                    
-                    // List some sample products
-                    String sampleProducts = "SELECT id, product_name, product_price FROM products LIMIT 5";
-                    List<Map<String, Object>> products = jdbcTemplate.queryForList(sampleProducts);
-                    for (Map<String, Object> product : products) {
-                        logger.info("Sample product: " + product);
-                    }
-                }
-            } catch (Exception e) {
-                logger.warning("Error checking products: " + e.getMessage());
-            }
-            
-            // Check order_product (singular)
-            try {
-                if (tables.contains("order_product")) {
-                    String joinCheck = "SELECT COUNT(*) FROM order_product";
-                    Integer joinCount = jdbcTemplate.queryForObject(joinCheck, Integer.class);
-                    logger.info("Total order_product records: " + joinCount);
-                    
-                    // List some sample order_product records
-                    if (joinCount > 0) {
-                        String sampleJoins = "SELECT * FROM order_product LIMIT 5";
-                        List<Map<String, Object>> joins = jdbcTemplate.queryForList(sampleJoins);
-                        for (Map<String, Object> join : joins) {
-                            logger.info("Sample order_product: " + join);
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                logger.warning("Error checking order_product: " + e.getMessage());
-            }
-        } catch (Exception e) {
-            logger.warning("Error during data existence check: " + e.getMessage());
-        }
-    }
-    
-    /**
-     * Get products directly from database without complicated joins
-     */
-    private List<PopularProductDTO> getProductsDirectly(Long restaurantId, int limit) {
-        List<PopularProductDTO> results = new ArrayList<>();
-        
-        try {
-            logger.info("Attempting to get products directly for restaurant ID: " + restaurantId);
-            
-            // Only use restaurant-specific queries
-            List<String> directQueries = new ArrayList<>();
-            
-            // First priority: Products with menu matching restaurant
-            directQueries.add(
-                "SELECT p.id, p.product_name as name, p.product_price as price " +
-                "FROM products p " +
-                "JOIN menu m ON p.menu_id = m.id " +
-                "WHERE m.restorant_id = ? " +
-                "ORDER BY p.id " +
-                "LIMIT ?"
-            );
-            
-            // Second priority: Products where menu_id is in the restaurant's menus
-            directQueries.add(
-                "SELECT p.id, p.product_name as name, p.product_price as price " +
-                "FROM products p " +
-                "WHERE p.menu_id IN (SELECT id FROM menu WHERE restorant_id = ?) " +
-                "ORDER BY p.id " +
-                "LIMIT ?"
-            );
-            
-            // Try each query
-            for (String sql : directQueries) {
-                try {
-                    logger.info("Trying restaurant-specific query: " + sql);
-                    
-                    List<Map<String, Object>> products = jdbcTemplate.queryForList(sql, restaurantId, limit);
-                    
-                    if (!products.isEmpty()) {
-                        logger.info("Found " + products.size() + " products for restaurant ID " + restaurantId);
-                        for (Map<String, Object> product : products) {
-                            try {
-                                Long id = ((Number) product.get("id")).longValue();
-                                String name = (String) product.get("name");
-                                BigDecimal price;
-                                Object priceObj = product.get("price");
-                                
-                                if (priceObj instanceof BigDecimal) {
-                                    price = (BigDecimal) priceObj;
-                                } else if (priceObj instanceof Double) {
-                                    price = BigDecimal.valueOf((Double) priceObj);
-                                } else if (priceObj instanceof Integer) {
-                                    price = BigDecimal.valueOf((Integer) priceObj);
-                                } else {
-                                    price = BigDecimal.ZERO;
-                                }
-                                
-                                // Define a descending order count to make it look meaningful
-                                Long orderCount = 10L - results.size();
-                                
-                                PopularProductDTO dto = new PopularProductDTO(id, name, price, orderCount);
-                                results.add(dto);
-                                logger.info("Added restaurant product: " + dto);
-                            } catch (Exception e) {
-                                logger.warning("Error mapping product: " + e.getMessage());
-                            }
-                        }
-                        
-                        if (!results.isEmpty()) {
-                            logger.info("Successfully found " + results.size() + " products for restaurant ID " + restaurantId);
-                            return results;
-                        }
-                    } else {
-                        logger.info("No products found with query: " + sql);
-                    }
-                } catch (Exception e) {
-                    logger.warning("Direct query failed: " + e.getMessage());
-                }
-            }
-            
-            // If we couldn't find any products for this restaurant, check if the restaurant even exists
-            try {
-                String restaurantCheck = "SELECT COUNT(*) FROM restorant WHERE id = ?";
-                Integer count = jdbcTemplate.queryForObject(restaurantCheck, Integer.class, restaurantId);
-                logger.info("Restaurant ID " + restaurantId + " exists check: " + (count > 0));
-                
-                if (count == null || count == 0) {
-                    logger.warning("Restaurant ID " + restaurantId + " does not exist in the database");
-                } else {
-                    logger.info("Restaurant exists but has no associated products yet");
-                }
-            } catch (Exception e) {
-                logger.warning("Error checking if restaurant exists: " + e.getMessage());
-            }
-        } catch (Exception e) {
-            logger.warning("Error getting products directly: " + e.getMessage());
+        List<PopularProductDTO> results = jdbcTemplate.query(POPULAR_PRODUCTS_SQL, ROW_MAPPER, restaurantId, actualLimit);
+        if (!results.isEmpty()) {
+            return results;
         }
-        
-        // Return empty list if we truly couldn't find anything for this specific restaurant
-        return results;
+
+        logger.debug("No sales recorded restaurantId={}, listing its products instead", restaurantId);
+        return jdbcTemplate.query(RESTAURANT_PRODUCTS_SQL, ROW_MAPPER, restaurantId, actualLimit);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,101 @@
+package com.example.qr_menu.services;
+
+import com.example.qr_menu.entities.Order;
+import com.example.qr_menu.entities.OrderProduct;
+import com.example.qr_menu.repositories.OrderProductRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Maintains the product_sales_daily rollup incrementally.
+ * Every placed order adds its lines to the (restaurant, product, day) rows and a
+ * cancellation or deletion subtracts them again, so reports never have to scan
+ * the order history. Callers run inside the order transaction, which keeps the
+ * rollup consistent with the orders table.
+ */
+@Service
+public class ProductSalesRollupService {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO product_sales_daily (restorant_id, product_id, sales_day, quantity, revenue, order_count) " +
+            "VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), " +
+            "revenue = revenue + VALUES(revenue), order_count = order_count + VALUES(order_count)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderProductRepository orderProductRepository;
+
+    public ProductSalesRollupService(JdbcTemplate jdbcTemplate, OrderProductRepository orderProductRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.orderProductRepository = orderProductRepository;
+    }
+
+    /**
+     * Adds a newly placed order to the rollup.
+     */
+    public void recordOrder(Order order, Collection<OrderProduct> orderProducts) {
+        List<SalesLine> lines = new ArrayList<>(orderProducts.size());
+        for (OrderProduct orderProduct : orderProducts) {
+            Double unitPrice = orderProduct.getUnitPrice() != null
+                    ? orderProduct.getUnitPrice()
+                    : orderProduct.getProduct().getProductPrice();
+            lines.add(new SalesLine(orderProduct.getProduct().getId(), orderProduct.getQuantity(), unitPrice));
+        }
+        apply(order, lines, 1);
+    }
+
+    /**
+     * Removes an order from the rollup, e.g. when it is cancelled or deleted.
+     */
+    public void reverseOrder(Order order) {
+        List<SalesLine> lines = new ArrayList<>();
+        for (OrderProductRepository.OrderLineView line : orderProductRepository.findLinesByOrderIds(List.of(order.getId()))) {
+            lines.add(new SalesLine(line.getProductId(), line.getQuantity(), line.getUnitPrice()));
+        }
+        apply(order, lines, -1);
+    }
+
+    private void apply(Order order, List<SalesLine> lines, int sign) {
+        if (lines.isEmpty() || order.getRestorant() == null) {
+            return;
+        }
+        Long restaurantId = order.getRestorant().getId();
+        Date salesDay = Date.valueOf(salesDayOf(order));
+
+        List<Object[]> batch = new ArrayList<>(lines.size());
+        for (SalesLine line : lines) {
+            double unitPrice = line.getUnitPrice() != null ? line.getUnitPrice() : 0.0;
+            batch.add(new Object[]{
+                    restaurantId,
+                    line.getProductId(),
+                    salesDay,
+                    (long) sign * line.getQuantity(),
+                    sign * unitPrice * line.getQuantity(),
+                    (long) sign
+            });
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, batch);
+    }
+
+    private static LocalDate salesDayOf(Order order) {
+        java.util.Date orderTime = order.getOrderTime() != null ? order.getOrderTime() : new java.util.Date();
+        return orderTime.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class SalesLine {
+        private final Long productId;
+        private final Integer quantity;
+        private final Double unitPrice;
+    }
+}
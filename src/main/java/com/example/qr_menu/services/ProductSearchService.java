@@ -0,0 +1,426 @@
+package com.example.qr_menu.services;
+
+import com.example.qr_menu.dto.ProductSearchHitDTO;
+import com.example.qr_menu.dto.ProductSearchResultDTO;
+import com.example.qr_menu.entities.Product;
+import com.example.qr_menu.events.MenuChangedEvent;
+import com.example.qr_menu.exceptions.ResourceNotFoundException;
+import com.example.qr_menu.repositories.MenuRepository;
+import com.example.qr_menu.repositories.ProductRepository;
+import com.example.qr_menu.repositories.RestaurantRepository;
+import com.example.qr_menu.utils.AfterCommit;
+import com.example.qr_menu.utils.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Type-ahead product search across all menus of a restaurant.
+ * Every menu has its own compact inverted index (sorted term array, flat posting arrays) over the
+ * product name, category name and product info. Text is lower-cased and stripped of accents, so
+ * "кафе" matches "Кафе" and "creme" matches "Crème", and every query word matches as a prefix.
+ * A product change drops only the index of its menu (via {@link MenuChangedEvent}); it is rebuilt
+ * on the next search, so large chains never re-index all of their menus for one edit.
+ */
+@Service
+public class ProductSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchService.class);
+
+    static final int MAX_LIMIT = 100;
+    private static final int MAX_QUERY_TERMS = 8;
+
+    // Field flags stored with every posting; a term found in the name ranks above one in the info
+    private static final int FIELD_NAME = 4;
+    private static final int FIELD_CATEGORY = 2;
+    private static final int FIELD_INFO = 1;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}\\p{M}]+");
+
+    private final MenuRepository menuRepository;
+    private final ProductRepository productRepository;
+    private final RestaurantRepository restaurantRepository;
+
+    private final ConcurrentHashMap<Long, MenuSearchIndex> indexes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, long[]> restaurantMenus = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so an index built from stale data is never published
+    private final ConcurrentHashMap<Long, Long> generations = new ConcurrentHashMap<>();
+    private final AtomicLong globalGeneration = new AtomicLong();
+    private final AtomicLong menuListGeneration = new AtomicLong();
+    private final CacheStats stats = new CacheStats();
+
+    public ProductSearchService(MenuRepository menuRepository,
+                                ProductRepository productRepository,
+                                RestaurantRepository restaurantRepository) {
+        this.menuRepository = menuRepository;
+        this.productRepository = productRepository;
+        this.restaurantRepository = restaurantRepository;
+    }
+
+    /**
+     * Ranked products of the restaurant whose name, category or description contain every
+     * query word (as a word prefix). A blank query returns no hits.
+     */
+    public ProductSearchResultDTO search(Long restaurantId, String query, int limit) {
+        long[] menuIds = menuIdsOf(restaurantId);
+        String[] terms = queryTerms(query);
+        int cappedLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        List<Hit> hits = new ArrayList<>();
+        if (terms.length > 0) {
+            for (long menuId : menuIds) {
+                getIndex(menuId).collect(terms, hits);
+            }
+        }
+        hits.sort(Hit.RANKING);
+
+        List<ProductSearchHitDTO> results = new ArrayList<>(Math.min(hits.size(), cappedLimit));
+        for (int i = 0; i < hits.size() && i < cappedLimit; i++) {
+            results.add(hits.get(i).toDto(terms));
+        }
+        return ProductSearchResultDTO.builder()
+                .restaurantId(restaurantId)
+                .query(query)
+                .total(hits.size())
+                .hits(results)
+                .build();
+    }
+
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    @EventListener
+    public void onMenuChanged(MenuChangedEvent event) {
+        AfterCommit.invalidate(() -> invalidate(event));
+    }
+
+    private void invalidate(MenuChangedEvent event) {
+        // The event does not say which restaurant the menu belongs to (or if it was just created)
+        menuListGeneration.incrementAndGet();
+        restaurantMenus.clear();
+        if (event.affectsAllMenus()) {
+            globalGeneration.incrementAndGet();
+            indexes.clear();
+            return;
+        }
+        indexes.compute(event.getMenuId(), (id, existing) -> {
+            generations.merge(id, 1L, Long::sum);
+            return null;
+        });
+    }
+
+    private long[] menuIdsOf(Long restaurantId) {
+        long[] cached = restaurantMenus.get(restaurantId);
+        if (cached != null) {
+            return cached;
+        }
+        long loadGeneration = menuListGeneration.get();
+        if (!restaurantRepository.existsById(restaurantId)) {
+            throw new ResourceNotFoundException("Restaurant not found with id: " + restaurantId);
+        }
+        long[] loaded = menuRepository.findIdsByRestorantId(restaurantId).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+        if (menuListGeneration.get() == loadGeneration) {
+            restaurantMenus.put(restaurantId, loaded);
+        }
+        return loaded;
+    }
+
+    private MenuSearchIndex getIndex(Long menuId) {
+        MenuSearchIndex cached = indexes.get(menuId);
+        if (cached != null) {
+            stats.hit();
+            return cached;
+        }
+        stats.miss();
+
+        long generation = generations.getOrDefault(menuId, 0L);
+        long global = globalGeneration.get();
+        MenuSearchIndex built = MenuSearchIndex.build(menuId, productRepository.findByMenuIdWithCategory(menuId));
+        logger.debug("Built search index menuId={} products={} terms={}", menuId, built.size(), built.termCount());
+
+        indexes.compute(menuId, (id, existing) ->
+                generations.getOrDefault(id, 0L) == generation && globalGeneration.get() == global
+                        ? built
+                        : existing);
+        return built;
+    }
+
+    /**
+     * Lower-cases and strips accents (combining marks), e.g. "Crème Брюле" -> "creme брюле".
+     */
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private static String[] queryTerms(String query) {
+        if (query == null || query.isBlank()) {
+            return new String[0];
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        for (String term : SEPARATORS.split(normalize(query))) {
+            if (!term.isEmpty() && terms.size() < MAX_QUERY_TERMS) {
+                terms.add(term);
+            }
+        }
+        return terms.toArray(new String[0]);
+    }
+
+    /**
+     * HTML-escapes the text and wraps every word starting with a query term in &lt;mark&gt;.
+     */
+    static String highlight(String text, String[] terms) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        StringBuilder out = new StringBuilder(text.length() + 16);
+        Matcher words = WORD.matcher(text);
+        int last = 0;
+        while (words.find()) {
+            out.append(escape(text.substring(last, words.start())));
+            String word = words.group();
+            if (matchesAny(normalize(word), terms)) {
+                out.append("<mark>").append(escape(word)).append("</mark>");
+            } else {
+                out.append(escape(word));
+            }
+            last = words.end();
+        }
+        out.append(escape(text.substring(last)));
+        return out.toString();
+    }
+
+    // Only markup characters are escaped; accented and Cyrillic letters stay as they are
+    private static String escape(String text) {
+        return HtmlUtils.htmlEscape(text, "UTF-8");
+    }
+
+    private static boolean matchesAny(String normalizedWord, String[] terms) {
+        for (String term : terms) {
+            if (normalizedWord.startsWith(term)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static float weight(int fields, boolean exact) {
+        float weight = (fields & FIELD_NAME) != 0 ? 3f : (fields & FIELD_CATEGORY) != 0 ? 1.5f : 1f;
+        return exact ? weight + 0.5f : weight;
+    }
+
+    static final class MenuSearchIndex {
+        private final long menuId;
+        // Per product, in product ID order
+        private final long[] productIds;
+        private final Long[] categoryIds;
+        private final String[] names;
+        private final String[] infos;
+        private final String[] categoryNames;
+        private final Double[] prices;
+        private final String[] images;
+        // Sorted distinct terms; postings of terms[t] are postingDocs[offsets[t] .. offsets[t + 1])
+        private final String[] terms;
+        private final int[] offsets;
+        private final int[] postingDocs;
+        private final byte[] postingFields;
+
+        private MenuSearchIndex(long menuId, long[] productIds, Long[] categoryIds, String[] names,
+                                String[] infos, String[] categoryNames, Double[] prices, String[] images,
+                                String[] terms, int[] offsets, int[] postingDocs, byte[] postingFields) {
+            this.menuId = menuId;
+            this.productIds = productIds;
+            this.categoryIds = categoryIds;
+            this.names = names;
+            this.infos = infos;
+            this.categoryNames = categoryNames;
+            this.prices = prices;
+            this.images = images;
+            this.terms = terms;
+            this.offsets = offsets;
+            this.postingDocs = postingDocs;
+            this.postingFields = postingFields;
+        }
+
+        static MenuSearchIndex build(long menuId, List<Product> products) {
+            int size = products.size();
+            long[] productIds = new long[size];
+            Long[] categoryIds = new Long[size];
+            String[] names = new String[size];
+            String[] infos = new String[size];
+            String[] categoryNames = new String[size];
+            Double[] prices = new Double[size];
+            String[] images = new String[size];
+
+            // term -> (doc -> field flags), docs in insertion (= product) order
+            TreeMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+            for (int doc = 0; doc < size; doc++) {
+                Product product = products.get(doc);
+                productIds[doc] = product.getId();
+                names[doc] = product.getProductName();
+                infos[doc] = product.getProductInfo();
+                prices[doc] = product.getProductPrice();
+                images[doc] = product.getProductImage();
+                if (product.getCategory() != null) {
+                    categoryIds[doc] = product.getCategory().getId();
+                    categoryNames[doc] = product.getCategory().getName();
+                }
+                addTerms(postings, doc, names[doc], FIELD_NAME);
+                addTerms(postings, doc, categoryNames[doc], FIELD_CATEGORY);
+                addTerms(postings, doc, infos[doc], FIELD_INFO);
+            }
+
+            String[] terms = postings.keySet().toArray(new String[0]);
+            int[] offsets = new int[terms.length + 1];
+            int total = 0;
+            for (int t = 0; t < terms.length; t++) {
+                offsets[t] = total;
+                total += postings.get(terms[t]).size();
+            }
+            offsets[terms.length] = total;
+
+            int[] postingDocs = new int[total];
+            byte[] postingFields = new byte[total];
+            int p = 0;
+            for (String term : terms) {
+                for (Map.Entry<Integer, Integer> entry : postings.get(term).entrySet()) {
+                    postingDocs[p] = entry.getKey();
+                    postingFields[p] = entry.getValue().byteValue();
+                    p++;
+                }
+            }
+            return new MenuSearchIndex(menuId, productIds, categoryIds, names, infos, categoryNames,
+                    prices, images, terms, offsets, postingDocs, postingFields);
+        }
+
+        private static void addTerms(TreeMap<String, Map<Integer, Integer>> postings, int doc, String text, int field) {
+            if (text == null || text.isBlank()) {
+                return;
+            }
+            for (String term : SEPARATORS.split(normalize(text))) {
+                if (!term.isEmpty()) {
+                    postings.computeIfAbsent(term, t -> new HashMap<>()).merge(doc, field, (a, b) -> a | b);
+                }
+            }
+        }
+
+        int size() {
+            return productIds.length;
+        }
+
+        int termCount() {
+            return terms.length;
+        }
+
+        /**
+         * Adds a hit for every product that matches all query terms. A query term matches any
+         * indexed term it is a prefix of; the best matching field counts towards the score.
+         */
+        void collect(String[] queryTerms, List<Hit> out) {
+            int size = productIds.length;
+            if (size == 0) {
+                return;
+            }
+            // matched[doc] == k means the product matched the first k query terms
+            int[] matched = new int[size];
+            float[] best = new float[size];
+            float[] score = new float[size];
+
+            for (int k = 0; k < queryTerms.length; k++) {
+                String prefix = queryTerms[k];
+                int t = lowerBound(prefix);
+                boolean any = false;
+                for (; t < terms.length && terms[t].startsWith(prefix); t++) {
+                    boolean exact = terms[t].length() == prefix.length();
+                    for (int p = offsets[t]; p < offsets[t + 1]; p++) {
+                        int doc = postingDocs[p];
+                        float w = weight(postingFields[p], exact);
+                        if (matched[doc] == k) {
+                            matched[doc] = k + 1;
+                            best[doc] = w;
+                            score[doc] += w;
+                            any = true;
+                        } else if (matched[doc] == k + 1 && w > best[doc]) {
+                            score[doc] += w - best[doc];
+                            best[doc] = w;
+                        }
+                    }
+                }
+                if (!any) {
+                    return;
+                }
+            }
+            for (int doc = 0; doc < size; doc++) {
+                if (matched[doc] == queryTerms.length) {
+                    out.add(new Hit(this, doc, score[doc]));
+                }
+            }
+        }
+
+        private int lowerBound(String prefix) {
+            int i = Arrays.binarySearch(terms, prefix);
+            return i >= 0 ? i : -i - 1;
+        }
+    }
+
+    static final class Hit {
+        static final Comparator<Hit> RANKING = Comparator
+                .comparingDouble((Hit hit) -> -hit.score)
+                .thenComparingInt(hit -> hit.name() != null ? hit.name().length() : Integer.MAX_VALUE)
+                .thenComparingLong(hit -> hit.index.productIds[hit.doc]);
+
+        private final MenuSearchIndex index;
+        private final int doc;
+        private final float score;
+
+        Hit(MenuSearchIndex index, int doc, float score) {
+            this.index = index;
+            this.doc = doc;
+            this.score = score;
+        }
+
+        private String name() {
+            return index.names[doc];
+        }
+
+        ProductSearchHitDTO toDto(String[] terms) {
+            return ProductSearchHitDTO.builder()
+                    .productId(index.productIds[doc])
+                    .menuId(index.menuId)
+                    .categoryId(index.categoryIds[doc])
+                    .productName(index.names[doc])
+                    .productInfo(index.infos[doc])
+                    .categoryName(index.categoryNames[doc])
+                    .productPrice(index.prices[doc])
+                    .productImage(index.images[doc])
+                    .score((double) score)
+                    .highlightedName(highlight(index.names[doc], terms))
+                    .highlightedInfo(highlight(index.infos[doc], terms))
+                    .highlightedCategory(highlight(index.categoryNames[doc], terms))
+                    .build();
+        }
+    }
+}
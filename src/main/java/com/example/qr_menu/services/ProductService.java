@@ -6,11 +6,13 @@ import com.example.qr_menu.entities.Allergen;
 import com.example.qr_menu.entities.Category;
 import com.example.qr_menu.entities.Menu;
 import com.example.qr_menu.entities.Product;
+import com.example.qr_menu.events.MenuChangedEvent;
 import com.example.qr_menu.exceptions.ResourceNotFoundException;
 import com.example.qr_menu.repositories.AllergenRepository;
 import com.example.qr_menu.repositories.CategoryRepository;
 import com.example.qr_menu.repositories.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,6 +31,9 @@ public class ProductService {
     @Autowired
     private AllergenRepository allergenRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Създава продукт. Ако productImage не е зададено,
      * използваме default image от менюто.
@@ -71,6 +76,7 @@ public class ProductService {
         }
 
         Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new MenuChangedEvent(menu.getId()));
         return convertToDto(savedProduct);
     }
 
@@ -170,6 +176,7 @@ public class ProductService {
         }
 
         Product updated = productRepository.save(product);
+        publishMenuChanged(updated);
         return convertToDto(updated);
     }
 
@@ -177,7 +184,19 @@ public class ProductService {
      * Изтрива продукт по ID.
      */
     public void deleteProduct(Long id) {
-        productRepository.deleteById(id);
+        productRepository.findById(id).ifPresent(product -> {
+            productRepository.delete(product);
+            publishMenuChanged(product);
+        });
+    }
+
+    /**
+     * Уведомява кешовете, че менюто на продукта е променено.
+     * Ако продуктът няма меню, инвалидираме всички менюта.
+     */
+    private void publishMenuChanged(Product product) {
+        Menu menu = product.getMenu();
+        eventPublisher.publishEvent(menu != null ? new MenuChangedEvent(menu.getId()) : MenuChangedEvent.allMenus());
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,158 @@
+package com.example.qr_menu.services;
+
+import com.example.qr_menu.dto.QRCodeBatchRequestDTO;
+import com.example.qr_menu.utils.QRCodeGenerator;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Renders many QR codes at once and streams them as a ZIP archive.
+ * Images are encoded in parallel on a bounded pool, but only a small window of
+ * finished images is held in memory at any time - each one is written to the
+ * archive (in request order) and released before the next item is submitted.
+ */
+@Service
+public class QRCodeBatchService {
+
+    private final int maxItems;
+    private final int window;
+    private final ThreadPoolExecutor executor;
+
+    public QRCodeBatchService(@Value("${qrcode.batch.threads:0}") int threads,
+                              @Value("${qrcode.batch.max-items:2000}") int maxItems) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.maxItems = maxItems;
+        this.window = poolSize * 2;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(poolSize * 16),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "qr-batch-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // When the queue is full the caller renders the image itself instead of failing
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Validates the request before anything is written, so bad input still gets a 400.
+     */
+    public void validate(QRCodeBatchRequestDTO request) {
+        List<QRCodeBatchRequestDTO.Item> items = request.getItems();
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("At least one item is required");
+        }
+        if (items.size() > maxItems) {
+            throw new IllegalArgumentException("A batch can contain at most " + maxItems + " items");
+        }
+        for (QRCodeBatchRequestDTO.Item item : items) {
+            if (item == null || item.getText() == null || item.getText().isEmpty()) {
+                throw new IllegalArgumentException("Every item must have a non-empty text");
+            }
+        }
+        QRCodeService.validateOptions(request.getSize(), request.getMargin(), request.getErrorCorrectionLevel());
+    }
+
+    public void writeZip(QRCodeBatchRequestDTO request, OutputStream outputStream) throws IOException {
+        int size = request.getSize();
+        int margin = request.getMargin();
+        ErrorCorrectionLevel level = ErrorCorrectionLevel.valueOf(request.getErrorCorrectionLevel());
+
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        Deque<PendingImage> pending = new ArrayDeque<>();
+        Set<String> usedNames = new HashSet<>();
+
+        try {
+            int index = 0;
+            for (QRCodeBatchRequestDTO.Item item : request.getItems()) {
+                index++;
+                if (pending.size() >= window) {
+                    writeEntry(zip, pending.removeFirst());
+                }
+                String entryName = uniqueEntryName(item.getFileName(), index, usedNames);
+                Future<byte[]> image = executor.submit(
+                        () -> QRCodeGenerator.generateQRCodeImage(item.getText(), size, margin, level));
+                pending.addLast(new PendingImage(entryName, image));
+            }
+            while (!pending.isEmpty()) {
+                writeEntry(zip, pending.removeFirst());
+            }
+            zip.finish();
+            zip.flush();
+        } finally {
+            // Client went away or encoding failed - don't keep rendering images nobody will read
+            pending.forEach(p -> p.getImage().cancel(true));
+        }
+    }
+
+    private void writeEntry(ZipOutputStream zip, PendingImage pendingImage) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = pendingImage.getImage().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("QR code batch was interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to generate QR code " + pendingImage.getEntryName() + ": "
+                    + e.getCause().getMessage(), e.getCause());
+        }
+
+        // PNG data is already deflated, storing it again compressed only burns CPU
+        zip.setLevel(0);
+        zip.putNextEntry(new ZipEntry(pendingImage.getEntryName()));
+        zip.write(bytes);
+        zip.closeEntry();
+    }
+
+    private static String uniqueEntryName(String fileName, int index, Set<String> usedNames) {
+        String base = fileName == null || fileName.isBlank()
+                ? "qr-" + index
+                : fileName.replaceAll("[^\\p{L}\\p{N}._-]", "_");
+        if (base.toLowerCase().endsWith(".png")) {
+            base = base.substring(0, base.length() - 4);
+        }
+
+        String name = base + ".png";
+        int duplicate = 1;
+        while (!usedNames.add(name)) {
+            name = base + "-" + (++duplicate) + ".png";
+        }
+        return name;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class PendingImage {
+        private final String entryName;
+        private final Future<byte[]> image;
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.qr_menu.services;
+
+import com.example.qr_menu.utils.CacheStats;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Two-tier (memory + disk) LRU cache for rendered QR code images.
+ * Entries are keyed by everything that influences the rendered bytes, so a cached
+ * image can be served as-is together with a strong ETag.
+ */
+@Service
+public class QRCodeCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QRCodeCacheService.class);
+
+    private final int memoryEntries;
+    private final int diskEntries;
+    private final Path cacheDir;
+
+    private final LinkedHashMap<QRCodeKey, CachedQRCode> memory;
+    // Disk file names in access order, used for LRU eviction of the disk tier
+    private final LinkedHashMap<String, Boolean> diskIndex;
+    // Locks instead of synchronized: eviction deletes files while holding the disk lock,
+    // which would pin the carrier thread when requests run on virtual threads
+    private final ReentrantLock memoryLock = new ReentrantLock();
+    private final ReentrantLock diskLock = new ReentrantLock();
+    private final CacheStats stats = new CacheStats();
+
+    public QRCodeCacheService(@Value("${qrcode.cache.memory-entries:500}") int memoryEntries,
+                              @Value("${qrcode.cache.disk-entries:10000}") int diskEntries,
+                              @Value("${qrcode.cache.dir:qr-cache}") String cacheDir) {
+        this.memoryEntries = memoryEntries;
+        this.diskEntries = diskEntries;
+        this.cacheDir = Paths.get(cacheDir).toAbsolutePath().normalize();
+        this.memory = new LinkedHashMap<>(16, 0.75f, true);
+        this.diskIndex = new LinkedHashMap<>(16, 0.75f, true);
+        loadDiskIndex();
+    }
+
+    /**
+     * Returns the cached image for the key, rendering and storing it on a miss.
+     */
+    public CachedQRCode get(QRCodeKey key, Callable<byte[]> renderer) throws Exception {
+        CachedQRCode cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        return put(key, renderer.call());
+    }
+
+    public CachedQRCode getIfPresent(QRCodeKey key) {
+        memoryLock.lock();
+        try {
+            CachedQRCode cached = memory.get(key);
+            if (cached != null) {
+                stats.hit();
+                return cached;
+            }
+        } finally {
+            memoryLock.unlock();
+        }
+
+        byte[] bytes = readFromDisk(key);
+        if (bytes == null) {
+            stats.miss();
+            return null;
+        }
+        stats.hit();
+        CachedQRCode loaded = new CachedQRCode(bytes, etagOf(bytes), key.contentType());
+        putInMemory(key, loaded);
+        return loaded;
+    }
+
+    public CachedQRCode put(QRCodeKey key, byte[] bytes) {
+        CachedQRCode entry = new CachedQRCode(bytes, etagOf(bytes), key.contentType());
+        putInMemory(key, entry);
+        writeToDisk(key, bytes);
+        return entry;
+    }
+
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Drops every cached rendering of the given text, e.g. after a menu URL changed.
+     */
+    public void evict(String text) {
+        memoryLock.lock();
+        try {
+            memory.keySet().removeIf(key -> key.getText().equals(text));
+        } finally {
+            memoryLock.unlock();
+        }
+        // Disk files are named by key hash, so only the formats we render can be targeted
+        String prefix = hash(text);
+        diskLock.lock();
+        try {
+            diskIndex.keySet().removeIf(fileName -> {
+                if (!fileName.startsWith(prefix)) {
+                    return false;
+                }
+                deleteQuietly(cacheDir.resolve(fileName));
+                return true;
+            });
+        } finally {
+            diskLock.unlock();
+        }
+    }
+
+    private void putInMemory(QRCodeKey key, CachedQRCode entry) {
+        memoryLock.lock();
+        try {
+            memory.put(key, entry);
+            while (memory.size() > memoryEntries) {
+                QRCodeKey eldest = memory.keySet().iterator().next();
+                memory.remove(eldest);
+            }
+        } finally {
+            memoryLock.unlock();
+        }
+    }
+
+    private byte[] readFromDisk(QRCodeKey key) {
+        String fileName = fileNameOf(key);
+        diskLock.lock();
+        try {
+            if (diskIndex.get(fileName) == null) {
+                return null;
+            }
+        } finally {
+            diskLock.unlock();
+        }
+        try {
+            return Files.readAllBytes(cacheDir.resolve(fileName));
+        } catch (IOException e) {
+            diskLock.lock();
+            try {
+                diskIndex.remove(fileName);
+            } finally {
+                diskLock.unlock();
+            }
+            return null;
+        }
+    }
+
+    private void writeToDisk(QRCodeKey key, byte[] bytes) {
+        if (diskEntries <= 0) {
+            return;
+        }
+        String fileName = fileNameOf(key);
+        try {
+            Files.createDirectories(cacheDir);
+            Path tempFile = Files.createTempFile(cacheDir, fileName, ".tmp");
+            Files.write(tempFile, bytes);
+            Files.move(tempFile, cacheDir.resolve(fileName),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The disk tier is best effort - the image is still served from memory
+            logger.warn("Failed to write QR code to disk cache dir={}: {}", cacheDir, e.getMessage());
+            return;
+        }
+
+        diskLock.lock();
+        try {
+            diskIndex.put(fileName, Boolean.TRUE);
+            while (diskIndex.size() > diskEntries) {
+                String eldest = diskIndex.keySet().iterator().next();
+                diskIndex.remove(eldest);
+                deleteQuietly(cacheDir.resolve(eldest));
+            }
+        } finally {
+            diskLock.unlock();
+        }
+    }
+
+    private void loadDiskIndex() {
+        if (!Files.isDirectory(cacheDir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            files.filter(Files::isRegularFile)
+                    .sorted((a, b) -> Long.compare(a.toFile().lastModified(), b.toFile().lastModified()))
+                    .forEach(file -> {
+                        String name = file.getFileName().toString();
+                        if (name.endsWith(".tmp")) {
+                            deleteQuietly(file);
+                        } else {
+                            diskIndex.put(name, Boolean.TRUE);
+                        }
+                    });
+        } catch (IOException e) {
+            logger.warn("Failed to read QR code disk cache dir={}", cacheDir, e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // A leftover file is harmless - it is no longer in the index
+        }
+    }
+
+    private static String fileNameOf(QRCodeKey key) {
+        // text hash first so all renderings of one URL can be evicted by prefix
+        return hash(key.getText()) + "-" + key.getSize() + "-" + key.getMargin() + "-"
+                + key.getErrorCorrectionLevel() + "." + key.getFormat();
+    }
+
+    private static String etagOf(byte[] bytes) {
+        return "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"";
+    }
+
+    private static String hash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Getter
+    @ToString
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    public static class QRCodeKey {
+        private final String text;
+        private final int size;
+        private final int margin;
+        private final String errorCorrectionLevel;
+        private final String format;
+
+        public String contentType() {
+            return "svg".equals(format) ? "image/svg+xml" : "image/png";
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class CachedQRCode {
+        private final byte[] bytes;
+        private final String etag;
+        private final String contentType;
+    }
+}
@@ -1,36 +1,75 @@
 package com.example.qr_menu.services;
 
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.EncodeHintType;
-import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
+import com.example.qr_menu.utils.QRCodeGenerator;
 import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.util.Arrays;
 import java.util.Base64;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Locale;
 
 @Service
 public class QRCodeService {
 
-    public String generateQRCode(String text, String format, int size, int margin, String errorCorrectionLevel, String type) throws WriterException, IOException {
-        Map<EncodeHintType, Object> hints = new HashMap<>();
-        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.valueOf(errorCorrectionLevel));
-        hints.put(EncodeHintType.MARGIN, margin);
-        hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
+    // Largest image edge in pixels; rendered images are cached, so this also bounds cache entries
+    public static final int MAX_SIZE = 4000;
 
-        QRCodeWriter qrCodeWriter = new QRCodeWriter();
-        BitMatrix bitMatrix = qrCodeWriter.encode(text, BarcodeFormat.QR_CODE, size, size, hints);
+    @Autowired
+    private QRCodeCacheService qrCodeCacheService;
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        MatrixToImageWriter.writeToStream(bitMatrix, "PNG", outputStream);
-        
-        String base64QRCode = Base64.getEncoder().encodeToString(outputStream.toByteArray());
-        return "data:image/png;base64," + base64QRCode;
+    /**
+     * Returns true when the format asks for the image itself instead of a JSON data URI.
+     */
+    public static boolean isBinaryFormat(String format) {
+        if (format == null) {
+            return false;
+        }
+        String normalized = format.toLowerCase(Locale.ROOT);
+        return normalized.equals("png") || normalized.equals("svg") || normalized.equals("raw");
     }
-} 
\ No newline at end of file
+
+    /**
+     * Checks the rendering options of a single or batch request; bad input is an
+     * IllegalArgumentException (400) before anything is rendered or cached.
+     */
+    public static void validateOptions(Integer size, Integer margin, String errorCorrectionLevel) {
+        if (size == null || size <= 0 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Size must be between 1 and " + MAX_SIZE);
+        }
+        if (margin == null || margin < 0) {
+            throw new IllegalArgumentException("Margin must not be negative");
+        }
+        if (errorCorrectionLevel == null || Arrays.stream(ErrorCorrectionLevel.values())
+                .noneMatch(value -> value.name().equals(errorCorrectionLevel))) {
+            throw new IllegalArgumentException("Error correction level must be one of L, M, Q, H");
+        }
+    }
+
+    /**
+     * Renders (or loads from cache) the QR code in the requested binary format.
+     * "raw" is an alias for "png"; anything else falls back to PNG as well.
+     */
+    @Timed(value = "qrcode.render", percentiles = {0.5, 0.95, 0.99})
+    public QRCodeCacheService.CachedQRCode renderQRCode(String text, String format, int size, int margin, String errorCorrectionLevel) throws Exception {
+        ErrorCorrectionLevel level = ErrorCorrectionLevel.valueOf(errorCorrectionLevel);
+        boolean svg = format != null && format.equalsIgnoreCase("svg");
+
+        if (svg) {
+            QRCodeCacheService.QRCodeKey key = new QRCodeCacheService.QRCodeKey(text, size, margin, level.name(), "svg");
+            return qrCodeCacheService.get(key, () -> QRCodeGenerator.generateQRCodeSvg(text, size, margin, level));
+        }
+
+        QRCodeCacheService.QRCodeKey key = new QRCodeCacheService.QRCodeKey(text, size, margin, level.name(), "png");
+        return qrCodeCacheService.get(key, () -> QRCodeGenerator.generateQRCodeImage(text, size, margin, level));
+    }
+
+    @Timed(value = "qrcode.generate", percentiles = {0.5, 0.95, 0.99})
+    public String generateQRCode(String text, String format, int size, int margin, String errorCorrectionLevel, String type) throws Exception {
+        QRCodeCacheService.CachedQRCode qrCode = renderQRCode(text, format, size, margin, errorCorrectionLevel);
+
+        String base64QRCode = Base64.getEncoder().encodeToString(qrCode.getBytes());
+        return "data:" + qrCode.getContentType() + ";base64," + base64QRCode;
+    }
+}
@@ -1,24 +1,48 @@
 package com.example.qr_menu.services;
 
 import com.example.qr_menu.entities.Account;
-import com.example.qr_menu.entities.ManagerAssignment;
-import com.example.qr_menu.entities.Restorant;
+import com.example.qr_menu.events.RestaurantAccessChangedEvent;
 import com.example.qr_menu.repositories.AccountRepository;
 import com.example.qr_menu.repositories.ManagerAssignmentRepository;
 import com.example.qr_menu.repositories.RestaurantRepository;
+import com.example.qr_menu.security.AccountPrincipal;
+import com.example.qr_menu.utils.AfterCommit;
+import com.example.qr_menu.utils.CacheStats;
+import com.example.qr_menu.utils.LongHashSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Answers "may this account manage that restaurant?" from an in-memory index.
+ * The restaurants an account owns or is assigned to are loaded once per account ID and
+ * kept as a primitive long set, so a permission check is a hash lookup without database
+ * access. Entries are dropped whenever a {@link RestaurantAccessChangedEvent} arrives.
+ */
 @Service
 public class RestaurantAccessService {
 
+    private static final Logger logger = LoggerFactory.getLogger(RestaurantAccessService.class);
+
     private final ManagerAssignmentRepository managerAssignmentRepository;
     private final AccountRepository accountRepository;
     private final RestaurantRepository restorantRepository;
 
+    private final Map<Long, LongHashSet> index = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so a load that raced with a write is not cached
+    private final AtomicLong generation = new AtomicLong();
+    private final CacheStats stats = new CacheStats();
+
     @Autowired
     public RestaurantAccessService(
             ManagerAssignmentRepository managerAssignmentRepository,
@@ -29,6 +53,25 @@ public class RestaurantAccessService {
         this.restorantRepository = restorantRepository;
     }
 
+    /**
+     * Checks if the authenticated user can manage the restaurant with the given ID.
+     * With a token-built {@link AccountPrincipal} this is an in-memory lookup.
+     *
+     * @param authentication The current authentication
+     * @param restaurantId The ID of the restaurant
+     * @return true if the user can manage the restaurant, false otherwise
+     */
+    public boolean canManageRestaurant(Authentication authentication, Long restaurantId) {
+        if (authentication == null || restaurantId == null) {
+            return false;
+        }
+        if (authentication.getPrincipal() instanceof AccountPrincipal principal) {
+            return isManagerType(principal.getAccountType())
+                    && restaurantIdsOf(principal.getAccountId()).contains(restaurantId);
+        }
+        return canManageRestaurant(authentication.getName(), restaurantId);
+    }
+
     /**
      * Checks if the user with the given email can manage the restaurant with the given ID.
      * A user can manage a restaurant if they created it or if they are assigned to it.
@@ -38,43 +81,59 @@ public class RestaurantAccessService {
      * @return true if the user can manage the restaurant, false otherwise
      */
     public boolean canManageRestaurant(String email, Long restaurantId) {
-        System.out.println("Checking if user '" + email + "' can manage restaurant ID: " + restaurantId);
-        
-        // Get the account for the user
+        if (email == null || restaurantId == null) {
+            return false;
+        }
         Optional<Account> accountOpt = accountRepository.findByMailAddress(email);
         if (accountOpt.isEmpty()) {
-            System.out.println("Access denied: Account not found for email: " + email);
             return false;
         }
-        
         Account account = accountOpt.get();
-        System.out.println("Found account: ID=" + account.getId() + ", Type=" + account.getAccountType());
-        
-        // If the account is not a manager or co-manager, they can't manage any restaurant
-        if (account.getAccountType() != Account.AccountType.ROLE_MANAGER && 
-            account.getAccountType() != Account.AccountType.ROLE_COMANAGER) {
-            System.out.println("Access denied: Account is not a manager or co-manager. Type: " + account.getAccountType());
-            return false;
+        return isManagerType(account.getAccountType().name().substring("ROLE_".length()))
+                && restaurantIdsOf(account.getId()).contains(restaurantId);
+    }
+
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    @EventListener
+    public void onAccessChanged(RestaurantAccessChangedEvent event) {
+        AfterCommit.invalidate(() -> invalidate(event));
+    }
+
+    private void invalidate(RestaurantAccessChangedEvent event) {
+        generation.incrementAndGet();
+        if (event.affectsAllAccounts()) {
+            index.clear();
+        } else {
+            index.remove(event.getAccountId());
         }
-        
-        // Check if the user is the one who created the restaurant
-        Optional<Restorant> restorantOpt = restorantRepository.findById(restaurantId);
-        if (restorantOpt.isEmpty()) {
-            System.out.println("Access denied: Restaurant not found with ID: " + restaurantId);
-            return false;
+    }
+
+    private static boolean isManagerType(String accountType) {
+        // Only managers and co-managers manage restaurants
+        return "MANAGER".equals(accountType) || "COMANAGER".equals(accountType);
+    }
+
+    private LongHashSet restaurantIdsOf(Long accountId) {
+        LongHashSet cached = index.get(accountId);
+        if (cached != null) {
+            stats.hit();
+            return cached;
         }
-        
-        Restorant restorant = restorantOpt.get();
-        // The creator of the restaurant can always manage it
-        if (restorant.getAccount() != null && restorant.getAccount().getId().equals(account.getId())) {
-            System.out.println("Access granted: Account is the creator of the restaurant");
-            return true;
+        stats.miss();
+
+        long loadGeneration = generation.get();
+        // The creator of the restaurant can always manage it, as can assigned (co-)managers
+        List<Long> restaurantIds = new ArrayList<>(restorantRepository.findIdsByAccountId(accountId));
+        restaurantIds.addAll(managerAssignmentRepository.findRestorantIdsByManagerId(accountId));
+
+        LongHashSet loaded = LongHashSet.of(restaurantIds);
+        logger.debug("Loaded restaurant access accountId={} restaurants={}", accountId, loaded.size());
+        if (generation.get() == loadGeneration) {
+            index.put(accountId, loaded);
         }
-        
-        // Check if the user is assigned to the restaurant as a manager or co-manager
-        boolean isAssigned = managerAssignmentRepository.existsByManagerIdAndRestorantId(account.getId(), restaurantId);
-        System.out.println("Is user assigned to restaurant: " + isAssigned);
-        
-        return isAssigned;
+        return loaded;
     }
-} 
\ No newline at end of file
+}
@@ -6,14 +6,18 @@ import com.example.qr_menu.entities.Account;
 import com.example.qr_menu.entities.Menu;
 import com.example.qr_menu.entities.Restorant;
 import com.example.qr_menu.entities.ManagerAssignment;
+import com.example.qr_menu.events.MenuChangedEvent;
+import com.example.qr_menu.events.RestaurantAccessChangedEvent;
 import com.example.qr_menu.exceptions.ResourceNotFoundException;
 import com.example.qr_menu.repositories.AccountRepository;
 import com.example.qr_menu.repositories.MenuRepository;
 import com.example.qr_menu.repositories.RestaurantRepository;
 import com.example.qr_menu.repositories.ManagerAssignmentRepository;
+import com.example.qr_menu.security.MenuMapper;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -33,6 +37,9 @@ public class RestaurantService {
     private final MenuRepository menuRepository;
     private final ManagerAssignmentRepository managerAssignmentRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Autowired
     public RestaurantService(RestaurantRepository restaurantRepository,
                              AccountRepository accountRepository,
@@ -104,6 +111,7 @@ public class RestaurantService {
                 // Continue without failing the whole operation
             }
         }
+        eventPublisher.publishEvent(new RestaurantAccessChangedEvent(account.getId()));
     }
 
     public void updateRestaurant(Long id, RestaurantDTO restaurantDTO) {
@@ -119,7 +127,13 @@ public class RestaurantService {
     public void deleteRestaurant(Long id) {
         Restorant restaurant = restaurantRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Restaurant not found with id: " + id));
+        List<Long> menuIds = menuRepository.findByRestorantId(id).stream()
+                .map(Menu::getId)
+                .collect(Collectors.toList());
         restaurantRepository.delete(restaurant);
+        menuIds.forEach(menuId -> eventPublisher.publishEvent(new MenuChangedEvent(menuId)));
+        // Owner and every assigned manager lose it
+        eventPublisher.publishEvent(RestaurantAccessChangedEvent.allAccounts());
     }
 
     public List<RestaurantDTO> getAllRestaurants() {
@@ -171,7 +185,7 @@ public class RestaurantService {
                     .createdAt(menu.getCreatedAt())
                     .updatedAt(menu.getUpdatedAt())
                     .menuUrl(menu.getMenuUrl())
-                    .qrCodeImage(menu.getQrCodeImage())
+                    .qrCodeUrl(MenuMapper.qrCodeUrl(menu.getId()))
                     .menuImage(menu.getMenuImage())
                     .textColor(menu.getTextColor())
                     .build())
@@ -186,7 +200,7 @@ public class RestaurantService {
                 .createdAt(menu.getCreatedAt())
                 .updatedAt(menu.getUpdatedAt())
                 .menuUrl(menu.getMenuUrl())
-                .qrCodeImage(menu.getQrCodeImage())
+                .qrCodeUrl(MenuMapper.qrCodeUrl(menu.getId()))
                 .menuImage(menu.getMenuImage())
                 .textColor(menu.getTextColor())
                 .build();
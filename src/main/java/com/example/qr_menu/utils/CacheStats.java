@@ -0,0 +1,36 @@
+package com.example.qr_menu.utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit and miss counters for one of the in-process caches.
+ * LongAdder keeps recording contention-free on hot read paths; the counts are
+ * published as metrics by {@link com.example.qr_menu.configurations.MetricsConfig}.
+ */
+public final class CacheStats {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public void hit() {
+        hits.increment();
+    }
+
+    public void miss() {
+        misses.increment();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public double hitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.qr_menu.utils;
+
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Encodes a {@link BitMatrix} as a 1-bit indexed PNG (palette: white, black).
+ * Unlike {@code MatrixToImageWriter} no {@code BufferedImage} or ImageIO is involved:
+ * rows are packed straight from the matrix bits and deflated with pooled
+ * reusable buffers, so the only allocation per image is the returned byte array.
+ * The pool is bounded rather than per-thread: with virtual threads every request
+ * runs on a fresh thread, and a per-thread native {@link Deflater} would be
+ * created for each render and only freed when the GC gets to it.
+ */
+public final class IndexedPngWriter {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    // Index 0 = white (unset module), index 1 = black (set module)
+    private static final byte[] PALETTE = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0, 0, 0};
+
+    private static final int IHDR_LENGTH = 13;
+    private static final int CHUNK_OVERHEAD = 12; // length + type + crc
+
+    // Idle scratch buffers; a render that finds none creates one, and extras beyond the capacity are ended
+    private static final BlockingQueue<Scratch> POOL =
+            new ArrayBlockingQueue<>(Math.max(2, Runtime.getRuntime().availableProcessors() * 2));
+
+    private IndexedPngWriter() {
+    }
+
+    public static byte[] write(BitMatrix matrix) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        int rowBytes = (width + 7) >>> 3;
+
+        Scratch scratch = POOL.poll();
+        if (scratch == null) {
+            scratch = new Scratch();
+        }
+        try {
+            return write(matrix, width, height, rowBytes, scratch);
+        } finally {
+            if (!POOL.offer(scratch)) {
+                scratch.deflater.end();
+            }
+        }
+    }
+
+    private static byte[] write(BitMatrix matrix, int width, int height, int rowBytes, Scratch scratch) {
+        byte[] scanline = scratch.scanline(rowBytes + 1);
+        BitArray row = scratch.row(width);
+        Deflater deflater = scratch.deflater;
+        deflater.reset();
+
+        // Filter type 0 (None); deflate already collapses the repeated rows of a scaled QR code
+        scanline[0] = 0;
+        for (int y = 0; y < height; y++) {
+            row = matrix.getRow(y, row);
+            packRow(row.getBitArray(), scanline, rowBytes);
+            deflater.setInput(scanline, 0, rowBytes + 1);
+            while (!deflater.needsInput()) {
+                scratch.deflateInto(deflater);
+            }
+        }
+        deflater.finish();
+        while (!deflater.finished()) {
+            scratch.deflateInto(deflater);
+        }
+        int idatLength = scratch.compressedLength;
+
+        byte[] png = new byte[SIGNATURE.length
+                + CHUNK_OVERHEAD + IHDR_LENGTH
+                + CHUNK_OVERHEAD + PALETTE.length
+                + CHUNK_OVERHEAD + idatLength
+                + CHUNK_OVERHEAD];
+        System.arraycopy(SIGNATURE, 0, png, 0, SIGNATURE.length);
+        int offset = SIGNATURE.length;
+        CRC32 crc = scratch.crc;
+
+        // IHDR: width, height, bit depth 1, colour type 3 (indexed), deflate, adaptive filtering, no interlace
+        byte[] header = scratch.header;
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = 1;
+        header[9] = 3;
+        header[10] = 0;
+        header[11] = 0;
+        header[12] = 0;
+        offset = writeChunk(png, offset, 'I', 'H', 'D', 'R', header, IHDR_LENGTH, crc);
+        offset = writeChunk(png, offset, 'P', 'L', 'T', 'E', PALETTE, PALETTE.length, crc);
+        offset = writeChunk(png, offset, 'I', 'D', 'A', 'T', scratch.compressed, idatLength, crc);
+        writeChunk(png, offset, 'I', 'E', 'N', 'D', header, 0, crc);
+        return png;
+    }
+
+    /**
+     * ZXing keeps bit x at position (x & 31) of word x / 32 (LSB first), while PNG
+     * wants the leftmost pixel in the most significant bit of each byte.
+     */
+    private static void packRow(int[] bits, byte[] scanline, int rowBytes) {
+        int out = 1;
+        for (int word = 0; out <= rowBytes; word++) {
+            int reversed = Integer.reverse(bits[word]);
+            for (int shift = 24; shift >= 0 && out <= rowBytes; shift -= 8) {
+                scanline[out++] = (byte) (reversed >>> shift);
+            }
+        }
+    }
+
+    private static int writeChunk(byte[] png, int offset, char t0, char t1, char t2, char t3,
+                                  byte[] data, int length, CRC32 crc) {
+        putInt(png, offset, length);
+        int typeOffset = offset + 4;
+        png[typeOffset] = (byte) t0;
+        png[typeOffset + 1] = (byte) t1;
+        png[typeOffset + 2] = (byte) t2;
+        png[typeOffset + 3] = (byte) t3;
+        System.arraycopy(data, 0, png, typeOffset + 4, length);
+
+        crc.reset();
+        crc.update(png, typeOffset, 4 + length);
+        putInt(png, typeOffset + 4 + length, (int) crc.getValue());
+        return typeOffset + 4 + length + 4;
+    }
+
+    private static void putInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Pooled buffers; they only grow, so steady-state rendering allocates nothing here.
+     */
+    private static final class Scratch {
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        private final CRC32 crc = new CRC32();
+        private final byte[] header = new byte[IHDR_LENGTH];
+        private byte[] scanline = new byte[0];
+        private byte[] compressed = new byte[4096];
+        private int compressedLength;
+        private BitArray row = new BitArray(0);
+
+        byte[] scanline(int length) {
+            if (scanline.length < length) {
+                scanline = new byte[length];
+            }
+            compressedLength = 0;
+            return scanline;
+        }
+
+        BitArray row(int width) {
+            if (row.getSize() < width) {
+                row = new BitArray(width);
+            }
+            return row;
+        }
+
+        void deflateInto(Deflater deflater) {
+            if (compressedLength == compressed.length) {
+                byte[] grown = new byte[compressed.length * 2];
+                System.arraycopy(compressed, 0, grown, 0, compressedLength);
+                compressed = grown;
+            }
+            compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+        }
+    }
+}
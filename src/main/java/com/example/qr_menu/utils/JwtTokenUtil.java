@@ -1,12 +1,16 @@
 package com.example.qr_menu.utils;
 
 import com.example.qr_menu.entities.Account;
+import com.example.qr_menu.security.VerifiedClaimsCache;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
@@ -17,11 +21,24 @@ import java.util.function.Function;
 @Component
 public class JwtTokenUtil {
 
+    private static final Logger logger = LoggerFactory.getLogger(JwtTokenUtil.class);
+
+    // Tokens are valid this long after login (TokenRevocationService keeps deny entries as long)
+    public static final long TOKEN_LIFETIME_MILLIS = 1000L * 60 * 60 * 10;
+
     // Hard-coded secret for development - never do this in production!
     private static final String SECRET_STRING = "MySuperSecretKeyForJWTGenerationThatIsAtLeast32BytesLongAndMoreForGoodMeasureToMakeSureItWorks";
-    
-    private SecretKey getSecretKey() {
-        return Keys.hmacShaKeyFor(SECRET_STRING.getBytes(StandardCharsets.UTF_8));
+
+    // The key and the parser are immutable and thread-safe, so they are built once
+    private final SecretKey secretKey;
+    private final JwtParser parser;
+    private final VerifiedClaimsCache claimsCache;
+
+    public JwtTokenUtil(@Value("${jwt.claims-cache.max-entries:10000}") int cacheEntries,
+                        @Value("${jwt.claims-cache.ttl-seconds:300}") long cacheTtlSeconds) {
+        this.secretKey = Keys.hmacShaKeyFor(SECRET_STRING.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder().setSigningKey(secretKey).build();
+        this.claimsCache = new VerifiedClaimsCache(cacheEntries, cacheTtlSeconds * 1000);
     }
 
     /**
@@ -49,23 +66,25 @@ public class JwtTokenUtil {
 
     /**
      * Парсва токена и връща всички claims от него (subject, expiration, custom claims и т.н.)
+     * Подписът се проверява само при първото виждане на токена - след това claims идват от кеша.
      */
     public Claims getAllClaimsFromToken(String token) {
+        Claims cached = claimsCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSecretKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            claimsCache.put(token, claims);
+            return claims;
         } catch (ExpiredJwtException e) {
-            System.out.println("Token has expired: " + e.getMessage());
+            logger.debug("Token has expired: {}", e.getMessage());
             throw new IllegalArgumentException("Token has expired", e);
         } catch (MalformedJwtException e) {
-            System.out.println("Invalid JWT token: " + e.getMessage());
+            logger.debug("Invalid JWT token: {}", e.getMessage());
             throw new IllegalArgumentException("Invalid JWT token", e);
         } catch (Exception e) {
-            System.out.println("Error parsing JWT token: " + e.getMessage());
-            e.printStackTrace();
+            logger.debug("Error parsing JWT token: {}", e.getMessage());
             throw new IllegalArgumentException("Error parsing JWT token: " + e.getMessage(), e);
         }
     }
@@ -75,10 +94,9 @@ public class JwtTokenUtil {
      */
     public Boolean isTokenExpired(String token) {
         try {
-            Date expirationDate = extractClaim(token, Claims::getExpiration);
-            return expirationDate.before(new Date());
+            return isExpired(getAllClaimsFromToken(token));
         } catch (Exception e) {
-            System.out.println("Error checking token expiration: " + e.getMessage());
+            logger.debug("Error checking token expiration: {}", e.getMessage());
             return true; // Consider expired if we can't check
         }
     }
@@ -86,12 +104,12 @@ public class JwtTokenUtil {
     /**
      * Генерира JWT токен за даден Account.
      * - subject: email
-     * - + custom claims: (accountType, accountId, firstName, lastName, profilePicture)
+     * - + custom claims: (accountType, accountId, firstName, lastName, profilePicture, tokenVersion)
      * - 10 часа валидност
      */
     public String generateToken(Account account) {
         try {
-            System.out.println("Generating token for account: " + account.getId());
+            logger.debug("Generating token accountId={}", account.getId());
             
             return Jwts.builder()
                     .setSubject(account.getMailAddress()) // Email as the subject
@@ -101,13 +119,13 @@ public class JwtTokenUtil {
                     .claim("firstName", account.getFirstName())
                     .claim("lastName", account.getLastName())
                     .claim("profilePicture", account.getProfilePicture())
+                    .claim("tokenVersion", account.getTokenVersion() != null ? account.getTokenVersion() : 0)
                     .setIssuedAt(new Date())
-                    .setExpiration(new Date(System.currentTimeMillis() + 1000L * 60 * 60 * 10)) // 10 hours
-                    .signWith(getSecretKey())
+                    .setExpiration(new Date(System.currentTimeMillis() + TOKEN_LIFETIME_MILLIS))
+                    .signWith(secretKey)
                     .compact();
         } catch (Exception e) {
-            System.out.println("Error generating token: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error generating token accountId={}", account.getId(), e);
             throw new RuntimeException("Failed to generate JWT token: " + e.getMessage(), e);
         }
     }
@@ -120,13 +138,10 @@ public class JwtTokenUtil {
      */
     public Boolean validateToken(String token) {
         try {
-            // Парсираме, за да проверим подписа и структурата
-            getAllClaimsFromToken(token);
-            // Ако всичко е ОК до тук, проверяваме и дали не е изтекъл
-            return !isTokenExpired(token);
+            // Парсираме веднъж - проверява подписа, структурата и дали не е изтекъл
+            return !isExpired(getAllClaimsFromToken(token));
         } catch (Exception e) {
             // При изключение (изтекъл, зле формиран токен) -> невалиден
-            System.out.println("Token validation failed: " + e.getMessage());
             return false;
         }
     }
@@ -138,23 +153,25 @@ public class JwtTokenUtil {
      */
     public Boolean validateToken(String token, String username) {
         try {
-            final String extractedUsername = extractUsername(token);
-            
-            // Extract account type for debugging
-            String accountType = extractClaim(token, claims -> claims.get("accountType", String.class));
-            Long accountId = extractClaim(token, claims -> claims.get("accountId", Long.class));
-            
-            // Log token validation attempt for debugging
-            System.out.println("Token validation - Username: " + extractedUsername + 
-                              ", Expected username: " + username + 
-                              ", AccountType: " + accountType + 
-                              ", AccountId: " + accountId);
-            
-            return (extractedUsername.equals(username) && !isTokenExpired(token));
+            Claims claims = getAllClaimsFromToken(token);
+            return claims.getSubject().equals(username) && !isExpired(claims);
         } catch (Exception e) {
-            System.err.println("Error validating token: " + e.getMessage());
-            e.printStackTrace();
             return false;
         }
     }
+
+    /**
+     * Попадения и пропуски в кеша на проверени токени (за метриките).
+     */
+    public CacheStats getClaimsCacheStats() {
+        return claimsCache.getStats();
+    }
+
+    /**
+     * Проверява изтичането по вече парснати claims, без ново парсване.
+     */
+    public static boolean isExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration != null && expiration.before(new Date());
+    }
 }
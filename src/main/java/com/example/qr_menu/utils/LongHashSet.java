@@ -0,0 +1,71 @@
+package com.example.qr_menu.utils;
+
+import java.util.Collection;
+
+/**
+ * Immutable open-addressing hash set of primitive longs.
+ * Lookups do not box and walk a single flat array, which keeps them cheap on hot
+ * paths such as per-request permission checks.
+ */
+public final class LongHashSet {
+
+    private static final LongHashSet EMPTY = new LongHashSet(new long[0], new boolean[0], 0);
+
+    private final long[] keys;
+    private final boolean[] used;
+    private final int size;
+
+    private LongHashSet(long[] keys, boolean[] used, int size) {
+        this.keys = keys;
+        this.used = used;
+        this.size = size;
+    }
+
+    public static LongHashSet of(Collection<Long> values) {
+        if (values.isEmpty()) {
+            return EMPTY;
+        }
+        // Power-of-two capacity at most half full, so probe chains stay short
+        int capacity = Integer.highestOneBit(Math.max(2, values.size() * 2 - 1)) << 1;
+        long[] keys = new long[capacity];
+        boolean[] used = new boolean[capacity];
+        int size = 0;
+        for (Long value : values) {
+            int slot = slot(value, capacity);
+            while (used[slot] && keys[slot] != value) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            if (!used[slot]) {
+                used[slot] = true;
+                keys[slot] = value;
+                size++;
+            }
+        }
+        return new LongHashSet(keys, used, size);
+    }
+
+    public boolean contains(long value) {
+        int capacity = keys.length;
+        if (capacity == 0) {
+            return false;
+        }
+        int slot = slot(value, capacity);
+        while (used[slot]) {
+            if (keys[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & (capacity - 1);
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static int slot(long value, int capacity) {
+        // Spread the bits so sequential IDs do not cluster
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (capacity - 1);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.qr_menu.utils;
+
+import com.example.qr_menu.entities.Order;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position in an order listing sorted by (order_time, id): the last order of the previous page.
+ * Encoded as an opaque URL-safe string so clients do not depend on its contents.
+ */
+public final class OrderCursor {
+
+    private final Date orderTime;
+    private final Long id;
+
+    private OrderCursor(Date orderTime, Long id) {
+        this.orderTime = orderTime;
+        this.id = id;
+    }
+
+    public static String encode(Order order) {
+        String raw = order.getOrderTime().getTime() + ":" + order.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the decoded cursor, or null for a missing cursor (the first page)
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static OrderCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new OrderCursor(new Date(Long.parseLong(raw.substring(0, separator))),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public Date getOrderTime() {
+        return orderTime;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
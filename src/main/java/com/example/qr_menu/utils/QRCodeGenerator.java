@@ -1,14 +1,18 @@
 package com.example.qr_menu.utils;
 
 import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
 import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
 
 public class QRCodeGenerator {
 
@@ -30,10 +34,93 @@ public class QRCodeGenerator {
         QRCodeWriter qrCodeWriter = new QRCodeWriter();
         BitMatrix bitMatrix = qrCodeWriter.encode(text, BarcodeFormat.QR_CODE, width, height);
 
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            MatrixToImageWriter.writeToStream(bitMatrix, "PNG", outputStream);
-            return outputStream.toByteArray();
+        return IndexedPngWriter.write(bitMatrix);
+    }
+
+    /**
+     * Генерира квадратен QR код с зададени отстъп и ниво на корекция на грешки.
+     *
+     * @param text Текстът, който ще бъде кодиран в QR кода.
+     * @param size Широчина и височина на QR кода.
+     * @param margin Отстъп (quiet zone) в модули.
+     * @param errorCorrectionLevel Ниво на корекция на грешки.
+     * @return Масив от байтове (PNG изображение).
+     * @throws WriterException Ако текстът не може да бъде кодиран.
+     * @throws IOException Ако има проблем с потока за изход.
+     */
+    public static byte[] generateQRCodeImage(String text, int size, int margin, ErrorCorrectionLevel errorCorrectionLevel)
+            throws WriterException, IOException {
+        if (text == null || text.isEmpty()) {
+            throw new IllegalArgumentException("Text for QR code cannot be null or empty.");
+        }
+
+        BitMatrix bitMatrix = encode(text, size, margin, errorCorrectionLevel);
+
+        return IndexedPngWriter.write(bitMatrix);
+    }
+
+    /**
+     * Генерира квадратен QR код като SVG документ.
+     * Всеки ред от модули се записва като поредица от правоъгълници (run-length),
+     * без междинно растерно изображение, а мащабирането до size се оставя на viewBox.
+     *
+     * @param text Текстът, който ще бъде кодиран в QR кода.
+     * @param size Широчина и височина на SVG изображението.
+     * @param margin Отстъп (quiet zone) в модули.
+     * @param errorCorrectionLevel Ниво на корекция на грешки.
+     * @return Масив от байтове (UTF-8 SVG документ).
+     * @throws WriterException Ако текстът не може да бъде кодиран.
+     */
+    public static byte[] generateQRCodeSvg(String text, int size, int margin, ErrorCorrectionLevel errorCorrectionLevel)
+            throws WriterException {
+        if (text == null || text.isEmpty()) {
+            throw new IllegalArgumentException("Text for QR code cannot be null or empty.");
         }
+
+        // Size 0 yields one matrix cell per module (including the quiet zone)
+        BitMatrix modules = encode(text, 0, margin, errorCorrectionLevel);
+        int width = modules.getWidth();
+        int height = modules.getHeight();
+
+        StringBuilder svg = new StringBuilder(width * height / 2 + 256);
+        svg.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(size)
+                .append("\" height=\"").append(size)
+                .append("\" viewBox=\"0 0 ").append(width).append(' ').append(height)
+                .append("\" shape-rendering=\"crispEdges\">")
+                .append("<rect width=\"100%\" height=\"100%\" fill=\"#fff\"/>")
+                .append("<path fill=\"#000\" d=\"");
+
+        for (int y = 0; y < height; y++) {
+            int x = 0;
+            while (x < width) {
+                if (!modules.get(x, y)) {
+                    x++;
+                    continue;
+                }
+                int runStart = x;
+                while (x < width && modules.get(x, y)) {
+                    x++;
+                }
+                int run = x - runStart;
+                svg.append('M').append(runStart).append(' ').append(y)
+                        .append('h').append(run).append("v1h-").append(run).append('z');
+            }
+        }
+
+        svg.append("\"/></svg>");
+        return svg.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static BitMatrix encode(String text, int size, int margin, ErrorCorrectionLevel errorCorrectionLevel)
+            throws WriterException {
+        Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+        hints.put(EncodeHintType.ERROR_CORRECTION, errorCorrectionLevel);
+        hints.put(EncodeHintType.MARGIN, margin);
+        hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
+
+        QRCodeWriter qrCodeWriter = new QRCodeWriter();
+        return qrCodeWriter.encode(text, BarcodeFormat.QR_CODE, size, size, hints);
     }
 
     /**
@@ -56,6 +143,6 @@ public class QRCodeGenerator {
 
         QRCodeWriter qrCodeWriter = new QRCodeWriter();
         BitMatrix bitMatrix = qrCodeWriter.encode(text, BarcodeFormat.QR_CODE, width, height);
-        MatrixToImageWriter.writeToPath(bitMatrix, "PNG", filePath);
+        Files.write(filePath, IndexedPngWriter.write(bitMatrix));
     }
 }
@@ -0,0 +1,24 @@
+-- Price of each line at the time the order was placed (older rows stay NULL)
+ALTER TABLE order_product ADD COLUMN unit_price DECIMAL(10, 2) NULL;
+
+-- Daily sales per restaurant and product, kept up to date when orders are placed, cancelled or deleted
+CREATE TABLE product_sales_daily (
+    restorant_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    sales_day DATE NOT NULL,
+    quantity BIGINT NOT NULL DEFAULT 0,
+    revenue DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (restorant_id, product_id, sales_day),
+    INDEX idx_product_sales_daily_day (restorant_id, sales_day)
+);
+
+-- Backfill from the existing order history
+INSERT INTO product_sales_daily (restorant_id, product_id, sales_day, quantity, revenue, order_count)
+SELECT o.restorant_id, op.product_id, DATE(o.order_time),
+       SUM(op.quantity), SUM(op.quantity * COALESCE(p.product_price, 0)), COUNT(*)
+FROM order_product op
+JOIN orders o ON o.id = op.order_id
+JOIN products p ON p.id = op.product_id
+WHERE o.order_status <> 'CANCELLED' AND o.restorant_id IS NOT NULL
+GROUP BY o.restorant_id, op.product_id, DATE(o.order_time);
@@ -0,0 +1,5 @@
+-- Bumped to revoke every token issued to the account before the change
+ALTER TABLE account ADD COLUMN token_version INT NOT NULL DEFAULT 0;
+
+-- The revocation refresh only reads accounts that have ever been revoked
+CREATE INDEX idx_account_token_version ON account (token_version);
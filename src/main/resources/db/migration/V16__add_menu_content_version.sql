@@ -0,0 +1,5 @@
+-- Version stamp (epoch millis, strictly increasing) of everything guests see for a menu:
+-- the menu itself, its categories and products. Drives ETag/Last-Modified on the public reads.
+ALTER TABLE menu ADD COLUMN content_version BIGINT NOT NULL DEFAULT 0;
+
+UPDATE menu SET content_version = UNIX_TIMESTAMP(COALESCE(updated_at, created_at, NOW())) * 1000;
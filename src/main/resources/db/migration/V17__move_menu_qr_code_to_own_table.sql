@@ -0,0 +1,15 @@
+-- QR artwork lives in its own table, so loading or listing menus never reads the BLOB
+CREATE TABLE menu_qr_code (
+    menu_id BIGINT NOT NULL PRIMARY KEY,
+    menu_url VARCHAR(255),
+    image MEDIUMBLOB NOT NULL,
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_menu_qr_code_menu FOREIGN KEY (menu_id) REFERENCES menu (id) ON DELETE CASCADE
+);
+
+INSERT INTO menu_qr_code (menu_id, menu_url, image)
+SELECT id, menu_url, qr_code_image
+FROM menu
+WHERE qr_code_image IS NOT NULL;
+
+ALTER TABLE menu DROP COLUMN qr_code_image;
@@ -0,0 +1,5 @@
+-- Order listings page by (order_time, id) within a restaurant or an account (keyset pagination).
+-- These indexes let a page seek straight to its cursor instead of scanning and sorting all rows.
+CREATE INDEX idx_orders_restorant_time ON orders (restorant_id, order_time, id);
+CREATE INDEX idx_orders_account_time ON orders (account_id, order_time, id);
+CREATE INDEX idx_orders_time ON orders (order_time, id);
@@ -0,0 +1,16 @@
+-- Secondary indexes for the lookups the repositories run on every request.
+-- Login and registration look accounts up by e-mail or account name.
+CREATE INDEX idx_account_mail_address ON account (mail_address);
+CREATE INDEX idx_account_account_name ON account (account_name);
+-- Admin screens list managers and admins, a small share of all accounts.
+CREATE INDEX idx_account_account_type ON account (account_type);
+
+-- Category pages list their products; order history and sales joins go from a product to its order lines.
+-- InnoDB drops its implicit foreign-key index once one of these covers the same column.
+CREATE INDEX idx_products_category_id ON products (category_id);
+CREATE INDEX idx_order_product_product_id ON order_product (product_id);
+
+-- Access checks ask "is this manager assigned to this restaurant?" in one probe.
+CREATE INDEX idx_manager_assignment_manager_restorant ON manager_assignment (manager_id, restorant_id);
+
+-- orders(account_id) is already covered by idx_orders_account_time (V18), products(menu_id) by idx_menu_id (V3).
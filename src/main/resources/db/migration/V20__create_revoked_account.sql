@@ -0,0 +1,7 @@
+-- Deleted accounts whose tokens are still within their lifetime. Every instance reloads this
+-- table, so a token of a deleted account is rejected everywhere, also after a restart.
+CREATE TABLE revoked_account (
+    account_id BIGINT NOT NULL PRIMARY KEY,
+    denied_until BIGINT NOT NULL,
+    INDEX idx_revoked_account_denied_until (denied_until)
+);
@@ -0,0 +1,71 @@
+package com.example.qr_menu.benchmarks;
+
+import com.example.qr_menu.entities.Account;
+import com.example.qr_menu.utils.JwtTokenUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request JWT work in {@link JwtTokenUtil}: a full signature check and parse
+ * (claims cache disabled) against the verified-claims cache hit that most requests take.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtTokenUtil uncached;
+    private JwtTokenUtil cached;
+    private Account account;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        uncached = new JwtTokenUtil(0, 300);
+        cached = new JwtTokenUtil(10000, 300);
+        account = Account.builder()
+                .id(42L)
+                .mailAddress("bench@example.com")
+                .firstName("Bench")
+                .lastName("Mark")
+                .accountType(Account.AccountType.ROLE_MANAGER)
+                .build();
+        token = cached.generateToken(account);
+        cached.validateToken(token);
+    }
+
+    @Benchmark
+    public String generate() {
+        return uncached.generateToken(account);
+    }
+
+    @Benchmark
+    public Claims parseUncached() {
+        return uncached.getAllClaimsFromToken(token);
+    }
+
+    @Benchmark
+    public Boolean validateUncached() {
+        return uncached.validateToken(token);
+    }
+
+    @Benchmark
+    public Boolean validateCached() {
+        return cached.validateToken(token);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(JwtBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
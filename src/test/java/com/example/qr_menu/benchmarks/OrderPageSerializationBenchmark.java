@@ -0,0 +1,84 @@
+package com.example.qr_menu.benchmarks;
+
+import com.example.qr_menu.dto.OrderDTO;
+import com.example.qr_menu.entities.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of an order list page, in the PagedModel shape the API returns
+ * (WebConfig serializes pages VIA_DTO).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderPageSerializationBenchmark {
+
+    @Param({"20", "100", "500"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private PagedModel<OrderDTO> page;
+
+    @Setup
+    public void setUp() {
+        // Same defaults as the ObjectMapper Spring Boot configures
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        List<OrderDTO> orders = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            List<OrderDTO.ProductOrderDTO> lines = new ArrayList<>();
+            for (int line = 0; line < 3; line++) {
+                lines.add(OrderDTO.ProductOrderDTO.builder()
+                        .productId((long) line + 1)
+                        .productName("Product " + line)
+                        .productImage("/uploads/products/" + line + ".png")
+                        .quantity(line + 1)
+                        .productPriceAtOrder(7.5 + line)
+                        .build());
+            }
+            orders.add(OrderDTO.builder()
+                    .id((long) i + 1)
+                    .accountId(7L)
+                    .restorantId(3L)
+                    .restorantName("Bench Bistro")
+                    .orderStatus(Order.OrderStatus.PENDING)
+                    .products(lines)
+                    .orderTime(new Date())
+                    .totalPrice(49.5)
+                    .customerName("Customer " + i)
+                    .customerEmail("customer" + i + "@example.com")
+                    .customerPhone("555-0100")
+                    .specialRequests("No onions please")
+                    .build());
+        }
+        page = new PagedModel<>(new PageImpl<>(orders, PageRequest.of(0, pageSize), pageSize * 10L));
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(OrderPageSerializationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.qr_menu.benchmarks;
+
+import com.example.qr_menu.dto.ProductDTO;
+import com.example.qr_menu.entities.Allergen;
+import com.example.qr_menu.entities.Category;
+import com.example.qr_menu.entities.Product;
+import com.example.qr_menu.services.ProductService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of mapping a whole menu to DTOs with {@link ProductService#convertToDto},
+ * as done for every menu read that is not served from a snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductDtoBenchmark {
+
+    @Param({"50", "500", "5000"})
+    private int products;
+
+    private final ProductService productService = new ProductService();
+    private List<Product> menu;
+
+    @Setup
+    public void setUp() {
+        List<Allergen> allergens = new ArrayList<>();
+        for (long id = 1; id <= 14; id++) {
+            allergens.add(Allergen.builder().id(id).allergenName("Allergen " + id).build());
+        }
+
+        List<Category> categories = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            categories.add(Category.builder().id(id).name("Category " + id).build());
+        }
+
+        menu = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            // 0-3 allergens per product, spread over the 14 EU allergens
+            List<Allergen> productAllergens = new ArrayList<>();
+            for (int a = 0; a < i % 4; a++) {
+                productAllergens.add(allergens.get((i + a * 5) % allergens.size()));
+            }
+            menu.add(Product.builder()
+                    .id((long) i + 1)
+                    .productName("Product " + i)
+                    .productPrice(4.5 + i % 20)
+                    .productInfo("Freshly made, served with a side of the day")
+                    .productImage("/uploads/products/" + i + ".png")
+                    .category(categories.get(i % categories.size()))
+                    .allergens(productAllergens)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public List<ProductDTO> convertMenu() {
+        List<ProductDTO> result = new ArrayList<>(menu.size());
+        for (Product product : menu) {
+            result.add(productService.convertToDto(product));
+        }
+        return result;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(ProductDtoBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
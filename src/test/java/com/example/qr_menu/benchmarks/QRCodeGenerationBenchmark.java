@@ -0,0 +1,76 @@
+package com.example.qr_menu.benchmarks;
+
+import com.example.qr_menu.services.QRCodeCacheService;
+import com.example.qr_menu.services.QRCodeService;
+import com.example.qr_menu.utils.QRCodeGenerator;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end QR code generation: encoding + PNG rendering in {@link QRCodeGenerator},
+ * and the data URI that {@link QRCodeService#generateQRCode} returns to the API,
+ * once with the image cache disabled and once served from the memory tier.
+ *
+ * Run all benchmarks with {@code mvn -Pbenchmarks test} (see the profile in pom.xml).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QRCodeGenerationBenchmark {
+
+    private static final String MENU_URL = "http://localhost:5173/menu/42?table=7";
+
+    @Param({"200", "300", "1000"})
+    private int size;
+
+    private QRCodeService uncachedService;
+    private QRCodeService cachedService;
+
+    @Setup
+    public void setUp() throws Exception {
+        // Disk tier off in both; the uncached service also keeps nothing in memory
+        uncachedService = serviceWith(new QRCodeCacheService(0, 0,
+                Files.createTempDirectory("qr-bench").toString()));
+        cachedService = serviceWith(new QRCodeCacheService(500, 0,
+                Files.createTempDirectory("qr-bench").toString()));
+        cachedService.generateQRCode(MENU_URL, "png", size, 1, "H", "json");
+    }
+
+    private static QRCodeService serviceWith(QRCodeCacheService cacheService) {
+        QRCodeService service = new QRCodeService();
+        ReflectionTestUtils.setField(service, "qrCodeCacheService", cacheService);
+        return service;
+    }
+
+    @Benchmark
+    public byte[] generatorPng() throws Exception {
+        return QRCodeGenerator.generateQRCodeImage(MENU_URL, size, 1, ErrorCorrectionLevel.H);
+    }
+
+    @Benchmark
+    public String serviceDataUriUncached() throws Exception {
+        return uncachedService.generateQRCode(MENU_URL, "png", size, 1, "H", "json");
+    }
+
+    @Benchmark
+    public String serviceDataUriCached() throws Exception {
+        return cachedService.generateQRCode(MENU_URL, "png", size, 1, "H", "json");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(QRCodeGenerationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
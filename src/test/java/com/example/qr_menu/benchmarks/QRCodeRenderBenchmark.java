@@ -0,0 +1,66 @@
+package com.example.qr_menu.benchmarks;
+
+import com.example.qr_menu.utils.IndexedPngWriter;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ImageIO based PNG path with {@link IndexedPngWriter} for an already encoded matrix.
+ *
+ * Run the main method from the IDE, or {@code mvn -Pbenchmarks test -Djmh.include=QRCodeRenderBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QRCodeRenderBenchmark {
+
+    @Param({"200", "300", "1000"})
+    private int size;
+
+    private BitMatrix matrix;
+
+    @Setup
+    public void setUp() throws Exception {
+        Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.H);
+        hints.put(EncodeHintType.MARGIN, 1);
+        hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
+        matrix = new QRCodeWriter().encode("http://localhost:5173/menu/42?table=7",
+                BarcodeFormat.QR_CODE, size, size, hints);
+    }
+
+    @Benchmark
+    public byte[] imageIO() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        MatrixToImageWriter.writeToStream(matrix, "PNG", outputStream);
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] indexedPng() {
+        return IndexedPngWriter.write(matrix);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(QRCodeRenderBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.qr_menu.configurations;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConnectionLimitingDataSourceTest {
+
+    private ConnectionLimitingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:connectionlimit;DB_CLOSE_DELAY=-1");
+        dataSource = new ConnectionLimitingDataSource(h2, 1, 50);
+    }
+
+    @Test
+    @DisplayName("A caller waiting past the timeout is rejected while the only permit is held")
+    void testRejectsWhenAllPermitsAreHeld() throws Exception {
+        try (Connection held = dataSource.getConnection()) {
+            assertTrue(held.isValid(1));
+            assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        }
+    }
+
+    @Test
+    @DisplayName("Closing a connection returns its permit exactly once")
+    void testCloseReleasesPermitOnce() throws Exception {
+        Connection first = dataSource.getConnection();
+        first.close();
+        // A second close must not hand out an extra permit
+        first.close();
+
+        try (Connection second = dataSource.getConnection()) {
+            assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import com.example.qr_menu.entities.Account;
 import com.example.qr_menu.entities.Restorant;
 import com.example.qr_menu.repositories.AccountRepository;
 import com.example.qr_menu.repositories.RestaurantRepository;
+import com.example.qr_menu.security.TokenRevocationService;
 import com.example.qr_menu.utils.JwtTokenUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -28,6 +29,7 @@ import org.springframework.web.context.WebApplicationContext;
 import java.util.Map;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -55,6 +57,9 @@ public class AccountControllerTest {
     @Autowired
     private JwtTokenUtil jwtTokenUtil;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     private MockMvc mockMvc;
     private ObjectMapper objectMapper;
 
@@ -212,6 +217,24 @@ public class AccountControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void testValidateToken_ClaimsVerifiedOnce() throws Exception {
+        // Вторият парс на същия токен идва от кеша на проверените claims
+        assertSame(jwtTokenUtil.getAllClaimsFromToken(userToken), jwtTokenUtil.getAllClaimsFromToken(userToken));
+
+        // Подправен подпис не трябва да минава, дори ако оригиналният токен е в кеша
+        String tampered = userToken.substring(0, userToken.length() - 2)
+                + (userToken.endsWith("AA") ? "BB" : "AA");
+        mockMvc.perform(get("/api/accounts/current")
+                .header("Authorization", "Bearer " + tampered))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(get("/api/accounts/current")
+                .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.mailAddress", is(testUser.getMailAddress())));
+    }
+
     @Test
     void testGetCurrentUser_Success() throws Exception {
         mockMvc.perform(get("/api/accounts/current")
@@ -281,11 +304,16 @@ public class AccountControllerTest {
 
     @Test
     void testUploadProfilePicture_Success() throws Exception {
+        // JPEG signature followed by filler; uploads are accepted by their leading bytes
+        byte[] jpeg = "xxxtest image content".getBytes();
+        jpeg[0] = (byte) 0xFF;
+        jpeg[1] = (byte) 0xD8;
+        jpeg[2] = (byte) 0xFF;
         MockMultipartFile profilePicture = new MockMultipartFile(
                 "profilePicture",
                 "profile.jpg",
                 "image/jpeg",
-                "test image content".getBytes()
+                jpeg
         );
 
         mockMvc.perform(multipart("/api/accounts/uploadProfilePicture/{accountId}", testUser.getId())
@@ -325,6 +353,38 @@ public class AccountControllerTest {
                 .andExpect(jsonPath("$.account.accountType", is("ROLE_MANAGER")));
     }
 
+    @Test
+    void testUpdateUserRole_RevokesOldTokens() throws Exception {
+        mockMvc.perform(get("/api/accounts/validate")
+                .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put("/api/accounts/{id}/update-role", testUser.getId())
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("role", "ROLE_MANAGER"))))
+                .andExpect(status().isOk());
+
+        // Отмяната се прилага след commit; тук я зареждаме от базата, както другите инстанции
+        accountRepository.flush();
+        tokenRevocationService.refresh();
+
+        // Старият токен носи старата роля и вече не се приема
+        mockMvc.perform(get("/api/accounts/validate")
+                .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/accounts/{id}", testUser.getId())
+                .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isForbidden());
+
+        // Нов вход дава токен с новата версия
+        String newToken = jwtTokenUtil.generateToken(accountRepository.findById(testUser.getId()).orElseThrow());
+        mockMvc.perform(get("/api/accounts/validate")
+                .header("Authorization", "Bearer " + newToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountType", is("ROLE_MANAGER")));
+    }
+
     @Test
     void testUpdateUserRole_NonAdminForbidden() throws Exception {
         Map<String, String> roleUpdate = Map.of("role", "ROLE_ADMIN");
@@ -379,6 +439,27 @@ public class AccountControllerTest {
                 .andExpect(content().string("Account deleted successfully"));
     }
 
+    @Test
+    void testDeleteAccount_RevokesTokensOnEveryInstance() throws Exception {
+        Account accountToDelete = testConfig.createTestUser();
+        accountToDelete.setAccountName("deleted");
+        accountToDelete.setMailAddress("deleted@example.com");
+        accountToDelete = accountRepository.save(accountToDelete);
+        String deletedToken = jwtTokenUtil.generateToken(accountToDelete);
+
+        mockMvc.perform(delete("/api/accounts/delete/{id}", accountToDelete.getId())
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk());
+
+        // Другите инстанции научават за изтриването от таблицата revoked_account
+        accountRepository.flush();
+        tokenRevocationService.refresh();
+
+        mockMvc.perform(get("/api/accounts/validate")
+                .header("Authorization", "Bearer " + deletedToken))
+                .andExpect(status().isUnauthorized());
+    }
+
     @Test
     void testUpdateAccount_Success() throws Exception {
         AccountDTO updateDTO = AccountDTO.builder()
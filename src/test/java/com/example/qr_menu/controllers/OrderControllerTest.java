@@ -3,25 +3,34 @@ package com.example.qr_menu.controllers;
 import com.example.qr_menu.config.TestConfig;
 import com.example.qr_menu.dto.OrderDTO;
 import com.example.qr_menu.entities.*;
+import com.example.qr_menu.events.OrderChangedEvent;
 import com.example.qr_menu.repositories.*;
 import com.example.qr_menu.utils.JwtTokenUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.TestTransaction;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
 import static org.hamcrest.Matchers.*;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
@@ -33,6 +42,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @AutoConfigureWebMvc
+@AutoConfigureObservability(tracing = false)
 @ActiveProfiles("test")
 @Transactional
 @Import(TestConfig.class)
@@ -62,6 +72,12 @@ public class OrderControllerTest {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private OrderProductRepository orderProductRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Autowired
     private JwtTokenUtil jwtTokenUtil;
 
@@ -240,6 +256,71 @@ public class OrderControllerTest {
                 .andExpect(jsonPath("$.content", hasSize(greaterThanOrEqualTo(1))));
     }
 
+    @Test
+    @DisplayName("Test keyset pagination of restaurant orders")
+    void testScrollOrdersByRestaurant() throws Exception {
+        // Two orders share a timestamp, so the id has to break the tie
+        Date sameTime = new Date(testOrder.getOrderTime().getTime() - 60_000);
+        List<Long> expected = new ArrayList<>(List.of(testOrder.getId()));
+        for (Date time : List.of(sameTime, sameTime, new Date(sameTime.getTime() - 60_000))) {
+            Order order = orderRepository.save(Order.builder()
+                    .orderTime(time)
+                    .orderStatus(Order.OrderStatus.PENDING)
+                    .totalPrice(10.0)
+                    .account(testUser)
+                    .restorant(testRestaurant)
+                    .build());
+            expected.add(order.getId());
+        }
+        // Newest first: testOrder, then the tied pair by descending id, then the oldest
+        Long tiedLow = expected.get(1);
+        expected.set(1, expected.get(2));
+        expected.set(2, tiedLow);
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            MockHttpServletRequestBuilder request = get("/api/orders/restaurant/{restaurantId}/scroll", testRestaurant.getId())
+                    .param("size", "2")
+                    .header("Authorization", "Bearer " + managerToken);
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            String body = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements").doesNotExist())
+                    .andReturn().getResponse().getContentAsString();
+            seen.addAll(JsonPath.<List<Number>>read(body, "$.content[*].id").stream()
+                    .map(Number::longValue).toList());
+            cursor = JsonPath.read(body, "$.nextCursor");
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(expected, seen);
+        assertEquals(2, pages);
+
+        mockMvc.perform(get("/api/orders/restaurant/{restaurantId}/scroll", testRestaurant.getId())
+                        .param("cursor", "not-a-cursor")
+                        .header("Authorization", "Bearer " + managerToken))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/orders/restaurant/{restaurantId}/scroll", testRestaurant.getId())
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/orders/restaurant/{restaurantId}/scroll", testRestaurant.getId())
+                        .header("Authorization", "Bearer " + otherManagerToken()))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/orders/user/scroll")
+                        .header("Authorization", "Bearer"))
+                .andExpect(status().is4xxClientError());
+        mockMvc.perform(get("/api/orders/user/scroll")
+                        .param("size", "10")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(4)))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
     // Test 8: Получаване на поръчки по потребител
     @Test
     @DisplayName("Test get orders by user")
@@ -253,6 +334,143 @@ public class OrderControllerTest {
                 .andExpect(jsonPath("$.content", hasSize(greaterThanOrEqualTo(1))));
     }
 
+    // Получаване на поръчки по ресторант заедно с продуктите им
+    @Test
+    @DisplayName("Test get orders by restaurant includes line items")
+    void testGetOrdersByRestaurantIncludesProducts() throws Exception {
+        orderProductRepository.save(OrderProduct.builder()
+                .id(new OrderProductId(testOrder.getId(), testProduct.getId()))
+                .order(testOrder)
+                .product(testProduct)
+                .quantity(2)
+                .build());
+
+        mockMvc.perform(get("/api/orders/restaurant/{restaurantId}", testRestaurant.getId())
+                        .param("page", "0")
+                        .param("size", "10")
+                        .header("Authorization", "Bearer " + managerToken))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(testOrder.getId()))
+                .andExpect(jsonPath("$.content[0].restorantName").value(testRestaurant.getRestorantName()))
+                .andExpect(jsonPath("$.content[0].products", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].products[0].productName").value(testProduct.getProductName()))
+                .andExpect(jsonPath("$.content[0].products[0].quantity").value(2));
+    }
+
+    // Поток от събития за поръчките на ресторант (SSE)
+    @Test
+    @DisplayName("Test restaurant order stream pushes order events")
+    void testStreamOrdersByRestaurant() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/orders/restaurant/{restaurantId}/stream", testRestaurant.getId())
+                        .header("Authorization", "Bearer " + managerToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        OrderDTO order = OrderDTO.builder()
+                .id(testOrder.getId())
+                .restorantId(testRestaurant.getId())
+                .orderStatus(Order.OrderStatus.PENDING)
+                .totalPrice(25.99)
+                .build();
+
+        // Events are delivered after commit, so leave the test transaction first
+        TestTransaction.flagForRollback();
+        TestTransaction.end();
+        eventPublisher.publishEvent(OrderChangedEvent.created(order));
+
+        String body = "";
+        for (int attempt = 0; attempt < 50 && !body.contains("event:order-created"); attempt++) {
+            Thread.sleep(100);
+            body = result.getResponse().getContentAsString();
+        }
+        assertEquals("text/event-stream", result.getResponse().getContentType().split(";")[0]);
+        assertTrue(body.contains("event:connected"));
+        assertTrue(body.contains("event:order-created"));
+        assertTrue(body.contains("\"id\":" + testOrder.getId()));
+    }
+
+    @Test
+    @DisplayName("Test restaurant order stream is forbidden for regular users")
+    void testStreamOrdersByRestaurantForbiddenForUser() throws Exception {
+        mockMvc.perform(get("/api/orders/restaurant/{restaurantId}/stream", testRestaurant.getId())
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Test restaurant order stream is forbidden for managers of other restaurants")
+    void testStreamOrdersByRestaurantForbiddenForOtherManager() throws Exception {
+        mockMvc.perform(get("/api/orders/restaurant/{restaurantId}/stream", testRestaurant.getId())
+                        .header("Authorization", "Bearer " + otherManagerToken()))
+                .andExpect(status().isForbidden());
+    }
+
+    // Популярните продукти се четат от дневната статистика и се коригират при отказ
+    @Test
+    @DisplayName("Test popular products follow created and cancelled orders")
+    void testPopularProductsRollup() throws Exception {
+        OrderDTO orderDTO = new OrderDTO();
+        orderDTO.setRestorantId(testRestaurant.getId());
+        OrderDTO.ProductOrderDTO line = new OrderDTO.ProductOrderDTO();
+        line.setProductId(testProduct.getId());
+        line.setQuantity(2);
+        orderDTO.setProducts(Arrays.asList(line));
+
+        String response = mockMvc.perform(post("/api/orders")
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(orderDTO)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Long orderId = Long.valueOf(response.substring(response.lastIndexOf(' ') + 1));
+
+        mockMvc.perform(get("/api/restaurants/{restaurantId}/popular-products", testRestaurant.getId())
+                        .header("Authorization", "Bearer " + managerToken))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(testProduct.getId()))
+                .andExpect(jsonPath("$[0].orderCount").value(1));
+
+        mockMvc.perform(put("/api/orders/{orderId}/status", orderId)
+                        .param("status", "CANCELLED")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk());
+
+        // No sales left, so the restaurant's products are listed with a zero count
+        mockMvc.perform(get("/api/restaurants/{restaurantId}/popular-products", testRestaurant.getId())
+                        .header("Authorization", "Bearer " + managerToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(testProduct.getId()))
+                .andExpect(jsonPath("$[0].orderCount").value(0));
+    }
+
+    // Статистика за администратора, изчислена с агрегиращи заявки
+    @Test
+    @DisplayName("Test admin statistics are aggregated from orders")
+    void testAdminStatistics() throws Exception {
+        mockMvc.perform(get("/api/admin/statistics")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalOrders").value(1))
+                .andExpect(jsonPath("$.totalRevenue").value(25.99))
+                .andExpect(jsonPath("$.orderStatusCounts.PENDING").value(1))
+                .andExpect(jsonPath("$.restaurantStats[0].id").value(testRestaurant.getId()))
+                .andExpect(jsonPath("$.restaurantStats[0].totalOrders").value(1))
+                .andExpect(jsonPath("$.recentOrders[0].id").value(testOrder.getId()))
+                .andExpect(jsonPath("$.timeStats.today.orders").value(1));
+    }
+
+    @Test
+    @DisplayName("Test admin statistics are forbidden for managers")
+    void testAdminStatisticsForbiddenForManager() throws Exception {
+        mockMvc.perform(get("/api/admin/statistics")
+                        .header("Authorization", "Bearer " + managerToken))
+                .andExpect(status().isForbidden());
+    }
+
     // Test 9: Получаване на брой поръчки по потребител
     @Test
     @DisplayName("Test get order count by account")
@@ -364,13 +582,50 @@ public class OrderControllerTest {
 
         orderDTO.setProducts(Arrays.asList(orderProduct1, orderProduct2));
 
-        mockMvc.perform(post("/api/orders")
+        String response = mockMvc.perform(post("/api/orders")
                         .header("Authorization", "Bearer " + userToken)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(orderDTO)))
                 .andDo(print())
                 .andExpect(status().isCreated())
-                .andExpect(content().string(containsString("Order created successfully")));
+                .andExpect(content().string(containsString("Order created successfully")))
+                .andReturn().getResponse().getContentAsString();
+
+        Long orderId = Long.valueOf(response.substring(response.lastIndexOf(' ') + 1));
+        assertEquals(2, orderProductRepository.findByOrderId(orderId).size());
+        assertEquals(2 * testProduct.getProductPrice() + 15.99,
+                orderRepository.findById(orderId).orElseThrow().getTotalPrice(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Test create order merges repeated lines of the same product")
+    void testCreateOrderMergesRepeatedProducts() throws Exception {
+        OrderDTO orderDTO = new OrderDTO();
+        orderDTO.setRestorantId(testRestaurant.getId());
+
+        OrderDTO.ProductOrderDTO firstLine = new OrderDTO.ProductOrderDTO();
+        firstLine.setProductId(testProduct.getId());
+        firstLine.setQuantity(2);
+
+        OrderDTO.ProductOrderDTO secondLine = new OrderDTO.ProductOrderDTO();
+        secondLine.setProductId(testProduct.getId());
+        secondLine.setQuantity(1);
+
+        orderDTO.setProducts(Arrays.asList(firstLine, secondLine));
+
+        String response = mockMvc.perform(post("/api/orders")
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(orderDTO)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+
+        Long orderId = Long.valueOf(response.substring(response.lastIndexOf(' ') + 1));
+        List<OrderProduct> lines = orderProductRepository.findByOrderId(orderId);
+        assertEquals(1, lines.size());
+        assertEquals(3, lines.get(0).getQuantity());
+        assertEquals(3 * testProduct.getProductPrice(),
+                orderRepository.findById(orderId).orElseThrow().getTotalPrice(), 0.001);
     }
 
 
@@ -389,4 +644,51 @@ public class OrderControllerTest {
                 .andDo(print())
                 .andExpect(status().isForbidden());
     }
-} 
\ No newline at end of file
+
+    // Test 20: Метриките за поръчки и кешове се виждат в Prometheus endpoint-а
+    @Test
+    @DisplayName("Test order metrics are exposed for Prometheus")
+    void testOrderMetricsExposedForPrometheus() throws Exception {
+        OrderDTO orderDTO = new OrderDTO();
+        orderDTO.setRestorantId(testRestaurant.getId());
+        orderDTO.setOrderStatus(Order.OrderStatus.PENDING);
+        orderDTO.setTotalPrice(10.99);
+        orderDTO.setCustomerName("Metrics Customer");
+
+        OrderDTO.ProductOrderDTO orderProductDTO = new OrderDTO.ProductOrderDTO();
+        orderProductDTO.setProductId(testProduct.getId());
+        orderProductDTO.setQuantity(1);
+        orderDTO.setProducts(Arrays.asList(orderProductDTO));
+
+        mockMvc.perform(post("/api/orders")
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(orderDTO)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/actuator/prometheus")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("orders_create_seconds_count")))
+                .andExpect(content().string(containsString("cache_gets_total{")))
+                .andExpect(content().string(containsString("cache=\"jwt-claims\"")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")));
+
+        // Loopback callers get no exemption: behind a local reverse proxy every request is local
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().is4xxClientError());
+        mockMvc.perform(get("/actuator/prometheus")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk());
+    }
+
+    // A manager who neither owns nor is assigned to testRestaurant
+    private String otherManagerToken() {
+        Account otherManager = testConfig.createTestManager();
+        otherManager.setAccountName("othermanager");
+        otherManager.setMailAddress("other.manager@example.com");
+        return jwtTokenUtil.generateToken(accountRepository.save(otherManager));
+    }
+}
@@ -3,14 +3,18 @@ package com.example.qr_menu.controllers;
 import com.example.qr_menu.config.TestConfig;
 import com.example.qr_menu.dto.ProductDTO;
 import com.example.qr_menu.entities.*;
+import com.example.qr_menu.events.MenuChangedEvent;
 import com.example.qr_menu.exceptions.ResourceNotFoundException;
 import com.example.qr_menu.repositories.*;
+import com.example.qr_menu.services.MenuSnapshotService;
 import com.example.qr_menu.utils.JwtTokenUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
@@ -22,14 +26,20 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.hamcrest.Matchers.*;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -46,6 +56,9 @@ public class ProductControllerTest {
     @Autowired
     private TestConfig testConfig;
 
+    @Value("${uploads.dir}")
+    private String uploadsDir;
+
     @Autowired
     private AccountRepository accountRepository;
 
@@ -67,6 +80,9 @@ public class ProductControllerTest {
     @Autowired
     private JwtTokenUtil jwtTokenUtil;
 
+    @Autowired
+    private MenuSnapshotService menuSnapshotService;
+
     private MockMvc mockMvc;
     private ObjectMapper objectMapper;
 
@@ -162,7 +178,7 @@ public class ProductControllerTest {
                 "productImage",
                 "test.jpg",
                 MediaType.IMAGE_JPEG_VALUE,
-                "test image content".getBytes()
+                jpeg("test image content")
         );
 
         mockMvc.perform(multipart("/api/products")
@@ -179,6 +195,88 @@ public class ProductControllerTest {
                 .andExpect(jsonPath("$.productPrice").value(19.99));
     }
 
+    @Test
+    @DisplayName("Test uploaded product images are stored by content, not by original name")
+    void testProductImagesAreContentAddressed() throws Exception {
+        String first = uploadProductImage("photo.jpg", "first image");
+        String second = uploadProductImage("photo.jpg", "second image");
+        String duplicate = uploadProductImage("other.JPG", "first image");
+
+        // Same original name no longer overwrites, same bytes share one file
+        assertTrue(first.matches("/uploads/products/[0-9a-f]{64}\\.jpg"), first);
+        assertTrue(!first.equals(second));
+        assertEquals(first, duplicate);
+        assertArrayEquals(jpeg("first image"), Files.readAllBytes(storedFile(first)));
+        assertArrayEquals(jpeg("second image"), Files.readAllBytes(storedFile(second)));
+
+        MockMultipartFile notAnImage = new MockMultipartFile(
+                "productImage", "notes.txt", MediaType.TEXT_PLAIN_VALUE, "text".getBytes());
+        mockMvc.perform(multipart("/api/products")
+                        .file(notAnImage)
+                        .param("productName", "Bad Upload")
+                        .param("productPrice", "1.00")
+                        .param("productInfo", "Not an image")
+                        .param("categoryId", testCategory.getId().toString())
+                        .header("Authorization", "Bearer " + managerToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Test uploads are typed by their content, not by the client's name or Content-Type")
+    void testProductImageTypeComesFromContent() throws Exception {
+        // HTML and SVG would be rendered by the browser from /uploads/**, whatever they claim to be
+        assertUploadRejected(new MockMultipartFile("productImage", "evil.html",
+                MediaType.IMAGE_PNG_VALUE, "<script>alert(1)</script>".getBytes()));
+        assertUploadRejected(new MockMultipartFile("productImage", "logo.svg",
+                "image/svg+xml", "<svg xmlns=\"http://www.w3.org/2000/svg\"/>".getBytes()));
+
+        // Real JPEG bytes under an HTML name are stored as .jpg
+        String stored = uploadProductImage("page.html", "still a jpeg");
+        assertTrue(stored.matches("/uploads/products/[0-9a-f]{64}\\.jpg"), stored);
+    }
+
+    private void assertUploadRejected(MockMultipartFile file) throws Exception {
+        mockMvc.perform(multipart("/api/products")
+                        .file(file)
+                        .param("productName", "Bad Upload")
+                        .param("productPrice", "1.00")
+                        .param("productInfo", "Not an image")
+                        .param("categoryId", testCategory.getId().toString())
+                        .header("Authorization", "Bearer " + managerToken))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
+    // JPEG signature followed by the given text
+    private static byte[] jpeg(String content) {
+        byte[] text = content.getBytes();
+        byte[] bytes = new byte[text.length + 3];
+        bytes[0] = (byte) 0xFF;
+        bytes[1] = (byte) 0xD8;
+        bytes[2] = (byte) 0xFF;
+        System.arraycopy(text, 0, bytes, 3, text.length);
+        return bytes;
+    }
+
+    private Path storedFile(String publicPath) {
+        return Paths.get(uploadsDir, publicPath.substring("/uploads/".length()));
+    }
+
+    private String uploadProductImage(String filename, String content) throws Exception {
+        MockMultipartFile image = new MockMultipartFile(
+                "productImage", filename, MediaType.IMAGE_JPEG_VALUE, jpeg(content));
+        String body = mockMvc.perform(multipart("/api/products")
+                        .file(image)
+                        .param("productName", "Image " + filename)
+                        .param("productPrice", "5.00")
+                        .param("productInfo", "Upload")
+                        .param("categoryId", testCategory.getId().toString())
+                        .header("Authorization", "Bearer " + managerToken))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, ProductDTO.class).getProductImage();
+    }
+
     @Test
     @DisplayName("Test get products by menu ID")
     void testGetProductsByMenuId() throws Exception {
@@ -213,6 +311,204 @@ public class ProductControllerTest {
                 .andExpect(jsonPath("$.productInfo").value(testProduct.getProductInfo()));
     }
 
+    @Test
+    @DisplayName("Test get menu snapshot")
+    void testGetMenuSnapshot() throws Exception {
+        mockMvc.perform(get("/api/menus/{id}/snapshot", testMenu.getId()))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.menu.id").value(testMenu.getId()))
+                .andExpect(jsonPath("$.categories", hasSize(1)))
+                .andExpect(jsonPath("$.products", hasSize(1)))
+                .andExpect(jsonPath("$.products[0].productName").value(testProduct.getProductName()));
+    }
+
+    @Test
+    @DisplayName("Test menu snapshot keeps its ETag when rebuilt without changes")
+    void testMenuSnapshotEtagSurvivesRebuild() throws Exception {
+        String etag = mockMvc.perform(get("/api/menus/{id}/snapshot", testMenu.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Drops the cached snapshot without touching the menu, as a restart or another instance would
+        menuSnapshotService.onMenuChanged(new MenuChangedEvent(testMenu.getId()));
+
+        mockMvc.perform(get("/api/menus/{id}/snapshot", testMenu.getId())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @DisplayName("Test menu snapshot is rebuilt after product update")
+    void testMenuSnapshotRebuiltAfterProductUpdate() throws Exception {
+        String etag = mockMvc.perform(get("/api/menus/{id}/snapshot", testMenu.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/menus/{id}/snapshot", testMenu.getId())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        ProductDTO allergenUpdateDTO = new ProductDTO();
+        allergenUpdateDTO.setAllergenIds(Arrays.asList(testAllergen.getId()));
+        mockMvc.perform(put("/api/products/{id}/allergens", testProduct.getId())
+                        .header("Authorization", "Bearer " + managerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(allergenUpdateDTO)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/menus/{id}/snapshot", testMenu.getId())
+                        .header("If-None-Match", etag))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products[0].allergens", hasSize(1)));
+    }
+
+    @Test
+    @DisplayName("Test public menu reads are conditional and follow product writes")
+    void testPublicMenuReadsAreConditional() throws Exception {
+        String etag = mockMvc.perform(get("/api/products/menu/{menuId}", testMenu.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", containsString("public")))
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/products/menu/{menuId}", testMenu.getId())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("Cache-Control", containsString("max-age")));
+
+        // Reads of the same menu share its version, but each representation has its own ETag
+        Set<String> etags = new HashSet<>();
+        etags.add(etag);
+        for (String url : List.of(
+                "/api/products/category/" + testCategory.getId(),
+                "/api/menus/" + testMenu.getId(),
+                "/api/menus/" + testMenu.getId() + "/categories",
+                "/api/menus/" + testMenu.getId() + "/products",
+                "/api/menus/" + testMenu.getId() + "/products?maxPrice=15")) {
+            mockMvc.perform(get(url).header("If-None-Match", etag))
+                    .andExpect(status().isOk());
+            String ownEtag = mockMvc.perform(get(url))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader("ETag");
+            assertTrue(etags.add(ownEtag), url + " reuses ETag " + ownEtag);
+            mockMvc.perform(get(url).header("If-None-Match", ownEtag))
+                    .andExpect(status().isNotModified());
+        }
+
+        // The same filter written differently is the same representation
+        String filterEtag = mockMvc.perform(get("/api/menus/{id}/products?excludeAllergens=7,1&maxPrice=15", testMenu.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/menus/{id}/products?maxPrice=15.0&excludeAllergens=1,7,1", testMenu.getId())
+                        .header("If-None-Match", filterEtag))
+                .andExpect(status().isNotModified());
+
+        String restaurantEtag = mockMvc.perform(get("/api/menus/restaurant/{id}", testRestaurant.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        ProductDTO allergenUpdateDTO = new ProductDTO();
+        allergenUpdateDTO.setAllergenIds(Arrays.asList(testAllergen.getId()));
+        mockMvc.perform(put("/api/products/{id}/allergens", testProduct.getId())
+                        .header("Authorization", "Bearer " + managerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(allergenUpdateDTO)))
+                .andExpect(status().isOk());
+
+        String newEtag = mockMvc.perform(get("/api/products/menu/{menuId}", testMenu.getId())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].allergens", hasSize(1)))
+                .andReturn().getResponse().getHeader("ETag");
+        assertTrue(!etag.equals(newEtag));
+
+        mockMvc.perform(get("/api/menus/restaurant/{id}", testRestaurant.getId())
+                        .header("If-None-Match", restaurantEtag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Test menu listings carry a QR code URL instead of the image")
+    void testMenuListingsOmitQrCodeImage() throws Exception {
+        mockMvc.perform(post("/api/menus")
+                        .header("Authorization", "Bearer " + managerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"category\":\"Drinks\",\"restaurantId\":" + testRestaurant.getId() + "}"))
+                .andExpect(status().isOk());
+
+        String body = mockMvc.perform(get("/api/menus/restaurant/{id}", testRestaurant.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].qrCodeImage").doesNotExist())
+                .andExpect(jsonPath("$[?(@.category == 'Drinks')].qrCodeUrl", hasSize(1)))
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(body.length() < 1000, body);
+
+        String qrCodeUrl = JsonPath.<List<String>>read(body, "$[?(@.category == 'Drinks')].qrCodeUrl").get(0);
+        byte[] png = mockMvc.perform(get(qrCodeUrl))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertTrue(png.length > 100);
+    }
+
+    @Test
+    @DisplayName("Test filtering menu products by allergens and price")
+    void testFilterMenuProductsByAllergensAndPrice() throws Exception {
+        ProductDTO withNuts = new ProductDTO();
+        withNuts.setProductName("Nut Cake");
+        withNuts.setProductPrice(6.50);
+        withNuts.setProductInfo("Contains nuts");
+        withNuts.setCategoryId(testCategory.getId());
+        withNuts.setAllergenIds(Arrays.asList(testAllergen.getId()));
+        mockMvc.perform(post("/api/products")
+                        .header("Authorization", "Bearer " + managerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(withNuts)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/menus/{id}/products", testMenu.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalProducts").value(2))
+                .andExpect(jsonPath("$.matchedProducts").value(2))
+                .andExpect(jsonPath("$.facets", hasSize(1)))
+                .andExpect(jsonPath("$.facets[0].allergenId").value(testAllergen.getId()))
+                .andExpect(jsonPath("$.facets[0].productCount").value(1));
+
+        mockMvc.perform(get("/api/menus/{id}/products", testMenu.getId())
+                        .param("excludeAllergens", testAllergen.getId() + ",999999"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.matchedProducts").value(1))
+                .andExpect(jsonPath("$.products[0].productName").value("Test Product"));
+
+        mockMvc.perform(get("/api/menus/{id}/products", testMenu.getId())
+                        .param("maxPrice", "8"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.matchedProducts").value(1))
+                .andExpect(jsonPath("$.products[0].productName").value("Nut Cake"));
+
+        // Tagging the other product with the allergen rebuilds the index
+        ProductDTO allergenUpdateDTO = new ProductDTO();
+        allergenUpdateDTO.setAllergenIds(Arrays.asList(testAllergen.getId()));
+        mockMvc.perform(put("/api/products/{id}/allergens", testProduct.getId())
+                        .header("Authorization", "Bearer " + managerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(allergenUpdateDTO)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/menus/{id}/products", testMenu.getId())
+                        .param("excludeAllergens", testAllergen.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.matchedProducts").value(0))
+                .andExpect(jsonPath("$.facets[0].productCount").value(2));
+
+        mockMvc.perform(get("/api/menus/{id}/products", 999999L))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @DisplayName("Test update product allergens")
     void testUpdateProductAllergens() throws Exception {
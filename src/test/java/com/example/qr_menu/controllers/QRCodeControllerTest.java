@@ -0,0 +1,275 @@
+package com.example.qr_menu.controllers;
+
+import com.example.qr_menu.config.TestConfig;
+import com.example.qr_menu.dto.QRCodeBatchRequestDTO;
+import com.example.qr_menu.entities.Account;
+import com.example.qr_menu.entities.Menu;
+import com.example.qr_menu.entities.Restorant;
+import com.example.qr_menu.repositories.AccountRepository;
+import com.example.qr_menu.repositories.MenuRepository;
+import com.example.qr_menu.repositories.RestaurantRepository;
+import com.example.qr_menu.services.MenuService;
+import com.example.qr_menu.services.QRCodeCacheService;
+import com.example.qr_menu.utils.JwtTokenUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureWebMvc
+@ActiveProfiles("test")
+@Transactional
+@Import(TestConfig.class)
+public class QRCodeControllerTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private TestConfig testConfig;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    @Autowired
+    private MenuRepository menuRepository;
+
+    @Autowired
+    private MenuService menuService;
+
+    @Autowired
+    private QRCodeCacheService qrCodeCacheService;
+
+    private MockMvc mockMvc;
+    private ObjectMapper objectMapper;
+
+    private String userToken;
+    private String managerToken;
+    private Account testManager;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .apply(springSecurity())
+                .build();
+
+        objectMapper = new ObjectMapper();
+
+        accountRepository.deleteAll();
+
+        Account testUser = accountRepository.save(testConfig.createTestUser());
+        testManager = accountRepository.save(testConfig.createTestManager());
+
+        userToken = jwtTokenUtil.generateToken(testUser);
+        managerToken = jwtTokenUtil.generateToken(testManager);
+    }
+
+    @Test
+    @DisplayName("Test generate single QR code")
+    void testGenerateQRCode() throws Exception {
+        mockMvc.perform(post("/api/qrcode/generate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\":\"http://localhost:5173/menu/1\",\"size\":200}"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.qrCode", startsWith("data:image/png;base64,")));
+    }
+
+    @Test
+    @DisplayName("Test generate QR code rejects out-of-range options before rendering")
+    void testGenerateQRCodeRejectsInvalidOptions() throws Exception {
+        for (String options : Arrays.asList("\"size\":100000", "\"size\":0", "\"margin\":-1",
+                "\"errorCorrectionLevel\":\"Z\"", "\"errorCorrectionLevel\":null")) {
+            mockMvc.perform(post("/api/qrcode/generate")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"text\":\"http://localhost:5173/menu/1\",\"format\":\"png\"," + options + "}"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.success").value(false));
+        }
+    }
+
+    @Test
+    @DisplayName("Test generate QR code as raw PNG bytes")
+    void testGenerateQRCodePng() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/qrcode/generate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\":\"http://localhost:5173/menu/1\",\"format\":\"png\",\"size\":200}"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andExpect(header().exists("ETag"))
+                .andReturn();
+
+        byte[] png = result.getResponse().getContentAsByteArray();
+        assertEquals((byte) 0x89, png[0]);
+        assertEquals('P', png[1]);
+        assertEquals('N', png[2]);
+        assertEquals('G', png[3]);
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertEquals(200, image.getWidth());
+        assertEquals(200, image.getHeight());
+    }
+
+    @Test
+    @DisplayName("Test generate QR code as SVG")
+    void testGenerateQRCodeSvg() throws Exception {
+        mockMvc.perform(post("/api/qrcode/generate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\":\"http://localhost:5173/menu/1\",\"format\":\"svg\",\"size\":200}"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/svg+xml"))
+                .andExpect(content().string(containsString("viewBox=\"0 0 ")))
+                .andExpect(content().string(containsString("<path fill=\"#000\" d=\"M")));
+    }
+
+    @Test
+    @DisplayName("Test batch QR code generation streams a ZIP")
+    void testGenerateQRCodeBatch() throws Exception {
+        QRCodeBatchRequestDTO request = QRCodeBatchRequestDTO.builder()
+                .items(Arrays.asList(
+                        new QRCodeBatchRequestDTO.Item("http://localhost:5173/menu/1?table=1", "table-1"),
+                        new QRCodeBatchRequestDTO.Item("http://localhost:5173/menu/1?table=2", "table-1"),
+                        new QRCodeBatchRequestDTO.Item("http://localhost:5173/menu/1?table=3", null)))
+                .size(150)
+                .build();
+
+        MvcResult asyncResult = mockMvc.perform(post("/api/qrcode/batch")
+                        .header("Authorization", "Bearer " + managerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MvcResult result = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/zip"))
+                .andReturn();
+
+        List<String> entryNames = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(
+                new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entryNames.add(entry.getName());
+            }
+        }
+        assertEquals(Arrays.asList("table-1.png", "table-1-2.png", "qr-3.png"), entryNames);
+    }
+
+    @Test
+    @DisplayName("Test batch QR code generation rejects empty batch")
+    void testGenerateQRCodeBatchEmpty() throws Exception {
+        mockMvc.perform(post("/api/qrcode/batch")
+                        .header("Authorization", "Bearer " + managerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":[]}"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
+    @Test
+    @DisplayName("Test batch QR code generation rejects a missing or unknown error correction level")
+    void testGenerateQRCodeBatchInvalidErrorCorrectionLevel() throws Exception {
+        for (String level : Arrays.asList("null", "\"X\"")) {
+            mockMvc.perform(post("/api/qrcode/batch")
+                            .header("Authorization", "Bearer " + managerToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"items\":[{\"text\":\"x\"}],\"errorCorrectionLevel\":" + level + "}"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.success").value(false))
+                    .andExpect(jsonPath("$.error").value("Error correction level must be one of L, M, Q, H"));
+        }
+    }
+
+    @Test
+    @DisplayName("Test batch QR code generation requires manager role")
+    void testGenerateQRCodeBatchForbiddenForUser() throws Exception {
+        mockMvc.perform(post("/api/qrcode/batch")
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":[{\"text\":\"x\"}]}"))
+                .andDo(print())
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Test menu QR code revalidates with its ETag and is re-rendered when the menu URL changes")
+    void testMenuQRCodeFollowsUrlChange() throws Exception {
+        Restorant restaurant = restaurantRepository.save(testConfig.createTestRestaurant(testManager));
+        Menu menu = menuRepository.save(testConfig.createTestMenu(restaurant));
+        String originalHost = (String) ReflectionTestUtils.getField(menuService, "viteHost");
+        String oldUrl = originalHost + "/menu/" + menu.getId();
+        String newUrl = "http://qr.example.com/menu/" + menu.getId();
+        // The disk tier outlives test runs, and menu ids repeat between them
+        qrCodeCacheService.evict(oldUrl);
+        qrCodeCacheService.evict(newUrl);
+
+        String etag = mockMvc.perform(get("/api/menus/{id}/qrcode", menu.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/menus/{id}/qrcode", menu.getId())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        ReflectionTestUtils.setField(menuService, "viteHost", "http://qr.example.com");
+        try {
+            String newEtag = mockMvc.perform(get("/api/menus/{id}/qrcode", menu.getId())
+                            .header("If-None-Match", etag))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader("ETag");
+            assertNotEquals(etag, newEtag);
+            assertEquals(newUrl, menuRepository.findById(menu.getId()).orElseThrow().getMenuUrl());
+            assertNull(qrCodeCacheService.getIfPresent(
+                    new QRCodeCacheService.QRCodeKey(oldUrl, 200, 4, "L", "png")));
+
+            mockMvc.perform(get("/api/menus/{id}/qrcode", menu.getId())
+                            .header("If-None-Match", newEtag))
+                    .andExpect(status().isNotModified());
+        } finally {
+            ReflectionTestUtils.setField(menuService, "viteHost", originalHost);
+        }
+    }
+}
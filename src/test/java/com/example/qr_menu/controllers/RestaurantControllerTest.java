@@ -3,9 +3,16 @@ package com.example.qr_menu.controllers;
 import com.example.qr_menu.config.TestConfig;
 import com.example.qr_menu.dto.RestaurantDTO;
 import com.example.qr_menu.entities.Account;
+import com.example.qr_menu.entities.Category;
+import com.example.qr_menu.entities.Menu;
+import com.example.qr_menu.entities.Product;
 import com.example.qr_menu.entities.Restorant;
 import com.example.qr_menu.repositories.AccountRepository;
+import com.example.qr_menu.repositories.CategoryRepository;
+import com.example.qr_menu.repositories.MenuRepository;
+import com.example.qr_menu.repositories.ProductRepository;
 import com.example.qr_menu.repositories.RestaurantRepository;
+import com.example.qr_menu.services.ManagerAssignmentService;
 import com.example.qr_menu.utils.JwtTokenUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -47,9 +54,21 @@ public class RestaurantControllerTest {
     @Autowired
     private RestaurantRepository restaurantRepository;
 
+    @Autowired
+    private MenuRepository menuRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
     @Autowired
     private JwtTokenUtil jwtTokenUtil;
 
+    @Autowired
+    private ManagerAssignmentService managerAssignmentService;
+
     private MockMvc mockMvc;
     private ObjectMapper objectMapper;
 
@@ -190,6 +209,61 @@ public class RestaurantControllerTest {
                 .andExpect(jsonPath("$").isArray());
     }
 
+    @Test
+    @DisplayName("Test product search across a restaurant's menus")
+    void testSearchRestaurantProducts() throws Exception {
+        Menu drinks = menuRepository.save(testConfig.createTestMenu(testRestaurant));
+        Menu desserts = menuRepository.save(testConfig.createTestMenu(testRestaurant));
+        Category coffee = testConfig.createTestCategory(drinks);
+        coffee.setName("Кафе");
+        coffee = categoryRepository.save(coffee);
+        Category sweets = testConfig.createTestCategory(desserts);
+        sweets.setName("Desserts");
+        sweets = categoryRepository.save(sweets);
+
+        Product espresso = testConfig.createTestProduct(drinks, coffee);
+        espresso.setProductName("Еспресо");
+        espresso.setProductInfo("Двойно кафе <strong>");
+        productRepository.save(espresso);
+        Product cremeBrulee = testConfig.createTestProduct(desserts, sweets);
+        cremeBrulee.setProductName("Crème brûlée");
+        cremeBrulee.setProductInfo("With coffee liqueur");
+        cremeBrulee = productRepository.save(cremeBrulee);
+
+        // Prefix and case: "КАФ" finds the category and the description
+        mockMvc.perform(get("/api/restaurants/{id}/search", testRestaurant.getId()).param("q", "КАФ"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.hits[0].productName").value("Еспресо"))
+                .andExpect(jsonPath("$.hits[0].highlightedCategory").value("<mark>Кафе</mark>"))
+                .andExpect(jsonPath("$.hits[0].highlightedInfo").value("Двойно <mark>кафе</mark> &lt;strong&gt;"));
+
+        // Accent-insensitive, every word must match, name matches rank first
+        mockMvc.perform(get("/api/restaurants/{id}/search", testRestaurant.getId()).param("q", "creme bru"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.hits[0].highlightedName").value("<mark>Crème</mark> <mark>brûlée</mark>"));
+        mockMvc.perform(get("/api/restaurants/{id}/search", testRestaurant.getId()).param("q", "creme tea"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(0));
+
+        // A product edit re-indexes its menu
+        mockMvc.perform(multipart("/api/products/{id}", cremeBrulee.getId())
+                        .with(request -> { request.setMethod("PUT"); return request; })
+                        .param("productName", "Coffee Tiramisu")
+                        .param("productPrice", "7.50")
+                        .param("productInfo", "Mascarpone")
+                        .header("Authorization", "Bearer " + managerToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/restaurants/{id}/search", testRestaurant.getId()).param("q", "tiram"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.hits[0].menuId").value(desserts.getId()));
+
+        mockMvc.perform(get("/api/restaurants/{id}/search", 999999L).param("q", "kafe"))
+                .andExpect(status().isNotFound());
+    }
+
 
 
     // Test 11: Обновяване на ресторант от друг потребител (неуспешно)
@@ -316,4 +390,40 @@ public class RestaurantControllerTest {
                 .andDo(print())
                 .andExpect(status().isForbidden());
     }
-} 
\ No newline at end of file
+
+    // Test 19: Назначаването на мениджър обновява кешираните права
+    @Test
+    @DisplayName("Test restaurant access follows manager assignments")
+    void testRestaurantAccessFollowsAssignments() throws Exception {
+        Account anotherManager = testConfig.createTestManager();
+        anotherManager.setMailAddress("assignedmanager@example.com");
+        anotherManager = accountRepository.save(anotherManager);
+        String anotherManagerToken = jwtTokenUtil.generateToken(anotherManager);
+
+        RestaurantDTO updateDTO = new RestaurantDTO();
+        updateDTO.setRestorantName("Assigned Manager Update");
+
+        // Без назначение - отказ (и празният набор от права се кешира)
+        mockMvc.perform(put("/api/restaurants/{id}", testRestaurant.getId())
+                        .header("Authorization", "Bearer " + anotherManagerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateDTO)))
+                .andExpect(status().isForbidden());
+
+        managerAssignmentService.assignManagerToRestaurant(anotherManager.getId(), testRestaurant.getId(), testAdmin.getId());
+
+        mockMvc.perform(put("/api/restaurants/{id}", testRestaurant.getId())
+                        .header("Authorization", "Bearer " + anotherManagerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateDTO)))
+                .andExpect(status().isOk());
+
+        managerAssignmentService.removeManagerFromRestaurant(anotherManager.getId(), testRestaurant.getId());
+
+        mockMvc.perform(put("/api/restaurants/{id}", testRestaurant.getId())
+                        .header("Authorization", "Bearer " + anotherManagerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateDTO)))
+                .andExpect(status().isForbidden());
+    }
+}
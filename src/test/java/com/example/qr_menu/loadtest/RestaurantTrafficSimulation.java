@@ -0,0 +1,410 @@
+package com.example.qr_menu.loadtest;
+
+import com.example.qr_menu.QrMenuGeneratorApplication;
+import com.example.qr_menu.entities.Account;
+import com.example.qr_menu.entities.Allergen;
+import com.example.qr_menu.entities.Category;
+import com.example.qr_menu.entities.Menu;
+import com.example.qr_menu.entities.Order;
+import com.example.qr_menu.entities.Product;
+import com.example.qr_menu.entities.Restorant;
+import com.example.qr_menu.repositories.AccountRepository;
+import com.example.qr_menu.repositories.AllergenRepository;
+import com.example.qr_menu.repositories.CategoryRepository;
+import com.example.qr_menu.repositories.MenuRepository;
+import com.example.qr_menu.repositories.ProductRepository;
+import com.example.qr_menu.repositories.RestaurantRepository;
+import com.example.qr_menu.utils.JwtTokenUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.AllArgsConstructor;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load generator that starts the application in-process on a random port (H2 in MySQL
+ * mode, the "test" profile), seeds restaurants, menus and customers, and replays a
+ * restaurant-evening traffic mix over real HTTP:
+ * <ul>
+ *   <li>scan - a guest scans a table QR: menu, categories and products of one menu</li>
+ *   <li>order - a burst of 1-3 orders through POST /api/orders</li>
+ *   <li>status - a waiter moves an open order to its next status</li>
+ *   <li>dashboard - an admin polls /api/admin/statistics</li>
+ * </ul>
+ * Each virtual user sends its next request as soon as the previous one returns (closed
+ * loop), so latencies are those seen at the given concurrency. Throughput and p50/p99
+ * latency per endpoint are printed and written as JSON.
+ *
+ * Run with {@code mvn -Pload-test test}; see the profile in pom.xml for the options.
+ */
+public class RestaurantTrafficSimulation {
+
+    private static final Order.OrderStatus[] WAITER_FLOW = {
+            Order.OrderStatus.ACCEPTED, Order.OrderStatus.PREPARING, Order.OrderStatus.READY, Order.OrderStatus.DELIVERED
+    };
+
+    private final int users = Integer.getInteger("loadtest.users", 32);
+    private final int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 60);
+    private final int warmupSeconds = Integer.getInteger("loadtest.warmup-seconds", 10);
+    private final int thinkTimeMs = Integer.getInteger("loadtest.think-time-ms", 0);
+    private final int restaurants = Integer.getInteger("loadtest.restaurants", 5);
+    private final int menusPerRestaurant = Integer.getInteger("loadtest.menus-per-restaurant", 2);
+    private final int productsPerMenu = Integer.getInteger("loadtest.products-per-menu", 120);
+    private final int customers = Integer.getInteger("loadtest.customers", 200);
+    private final String mix = System.getProperty("loadtest.mix", "scan:70,order:15,status:10,dashboard:5");
+    private final String reportFile = System.getProperty("loadtest.report", "target/loadtest-report.json");
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<OpenOrder> openOrders = new ConcurrentLinkedQueue<>();
+
+    private String baseUrl;
+    private final List<SeededMenu> menus = new ArrayList<>();
+    private final List<String> customerTokens = new ArrayList<>();
+    private String staffToken;
+    private String adminToken;
+
+    private volatile long recordFromNanos;
+
+    public static void main(String[] args) throws Exception {
+        new RestaurantTrafficSimulation().run();
+    }
+
+    private void run() throws Exception {
+        File cacheDir = Files.createTempDirectory("loadtest-qr-cache").toFile();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QrMenuGeneratorApplication.class)
+                .profiles("test")
+                // Command-line arguments, so they win over application-test.properties
+                .run("--server.port=0",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.format_sql=false",
+                        "--logging.level.com.example.qr_menu=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.hibernate.tool.hbm2ddl=WARN",
+                        "--qrcode.cache.dir=" + cacheDir.getAbsolutePath());
+        try {
+            baseUrl = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            seed(context);
+            drive();
+            report();
+        } finally {
+            context.close();
+        }
+    }
+
+    private void seed(ConfigurableApplicationContext context) {
+        PasswordEncoder passwordEncoder = context.getBean(PasswordEncoder.class);
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        RestaurantRepository restaurantRepository = context.getBean(RestaurantRepository.class);
+        MenuRepository menuRepository = context.getBean(MenuRepository.class);
+        CategoryRepository categoryRepository = context.getBean(CategoryRepository.class);
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        AllergenRepository allergenRepository = context.getBean(AllergenRepository.class);
+        JwtTokenUtil jwtTokenUtil = context.getBean(JwtTokenUtil.class);
+
+        // One hash for every seeded account - BCrypt per account would dominate the seeding time
+        String password = passwordEncoder.encode("loadtest");
+        Account admin = accountRepository.save(account("admin", Account.AccountType.ROLE_ADMIN, password));
+        Account manager = accountRepository.save(account("manager", Account.AccountType.ROLE_MANAGER, password));
+        adminToken = jwtTokenUtil.generateToken(admin);
+        staffToken = jwtTokenUtil.generateToken(manager);
+        for (int i = 0; i < customers; i++) {
+            Account customer = accountRepository.save(account("guest" + i, Account.AccountType.ROLE_USER, password));
+            customerTokens.add(jwtTokenUtil.generateToken(customer));
+        }
+
+        List<Allergen> allergens = new ArrayList<>();
+        for (int i = 1; i <= 14; i++) {
+            allergens.add(allergenRepository.save(Allergen.builder().allergenName("Allergen " + i).build()));
+        }
+
+        for (int r = 0; r < restaurants; r++) {
+            Restorant restaurant = restaurantRepository.save(Restorant.builder()
+                    .restorantName("Load Test Restaurant " + r)
+                    .phoneNumber("555-01" + r)
+                    .address(r + " Load Street")
+                    .email("restaurant" + r + "@loadtest.local")
+                    .account(manager)
+                    .build());
+            for (int m = 0; m < menusPerRestaurant; m++) {
+                Menu menu = menuRepository.save(Menu.builder()
+                        .category("Menu " + m)
+                        .createdAt(new Date())
+                        .updatedAt(new Date())
+                        .restorant(restaurant)
+                        .menuUrl("http://localhost:5173/menu/" + r + "-" + m)
+                        .menuImage("default_menu.png")
+                        .textColor("text-white")
+                        .defaultProductImage("default_product.png")
+                        .build());
+                List<Category> categories = new ArrayList<>();
+                for (int c = 0; c < 8; c++) {
+                    categories.add(categoryRepository.save(Category.builder()
+                            .name("Category " + c)
+                            .categoryImage("default_category.png")
+                            .menu(menu)
+                            .build()));
+                }
+                List<Long> productIds = new ArrayList<>();
+                for (int p = 0; p < productsPerMenu; p++) {
+                    List<Allergen> productAllergens = new ArrayList<>();
+                    for (int a = 0; a < p % 4; a++) {
+                        productAllergens.add(allergens.get((p + a * 5) % allergens.size()));
+                    }
+                    productIds.add(productRepository.save(Product.builder()
+                            .productName("Product " + p)
+                            .productPrice(4.5 + p % 20)
+                            .productInfo("Freshly made, served with a side of the day")
+                            .productImage("default_product.png")
+                            .menu(menu)
+                            .category(categories.get(p % categories.size()))
+                            .allergens(productAllergens)
+                            .build()).getId());
+                }
+                menus.add(new SeededMenu(restaurant.getId(), menu.getId(), productIds));
+            }
+        }
+        System.out.printf("Seeded %d restaurants, %d menus, %d products, %d customers%n",
+                restaurants, menus.size(), menus.size() * productsPerMenu, customers);
+    }
+
+    private static Account account(String name, Account.AccountType type, String password) {
+        return Account.builder()
+                .accountName(name)
+                .firstName(name)
+                .lastName("Load")
+                .mailAddress(name + "@loadtest.local")
+                .password(password)
+                .accountType(type)
+                .number("0000000000")
+                .createdAt(new Timestamp(System.currentTimeMillis()))
+                .build();
+    }
+
+    private void drive() throws InterruptedException {
+        List<String> operations = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            operations.add(parts[0]);
+            weights.add(Integer.parseInt(parts[1]));
+        }
+        int totalWeight = weights.stream().mapToInt(Integer::intValue).sum();
+
+        long start = System.nanoTime();
+        recordFromNanos = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long endNanos = recordFromNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+        System.out.printf("Running %d users for %ds (+%ds warm-up), mix %s%n", users, durationSeconds, warmupSeconds, mix);
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < endNanos) {
+                    int pick = random.nextInt(totalWeight);
+                    int index = 0;
+                    while (pick >= weights.get(index)) {
+                        pick -= weights.get(index++);
+                    }
+                    perform(operations.get(index), random);
+                    if (thinkTimeMs > 0) {
+                        try {
+                            Thread.sleep(random.nextInt(thinkTimeMs * 2 + 1));
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+            }, "load-user-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private void perform(String operation, ThreadLocalRandom random) {
+        SeededMenu menu = menus.get(random.nextInt(menus.size()));
+        switch (operation) {
+            case "scan" -> {
+                send("GET /api/menus/{id}", get("/api/menus/" + menu.menuId, null));
+                send("GET /api/menus/{id}/categories", get("/api/menus/" + menu.menuId + "/categories", null));
+                send("GET /api/products/menu/{menuId}", get("/api/products/menu/" + menu.menuId, null));
+            }
+            case "order" -> {
+                int burst = 1 + random.nextInt(3);
+                for (int i = 0; i < burst; i++) {
+                    placeOrder(menu, random);
+                }
+            }
+            case "status" -> {
+                OpenOrder order = openOrders.poll();
+                if (order == null) {
+                    placeOrder(menu, random);
+                    return;
+                }
+                Order.OrderStatus next = WAITER_FLOW[order.step];
+                HttpResponse<String> response = send("PUT /api/orders/{id}/status", HttpRequest.newBuilder()
+                        .uri(URI.create(baseUrl + "/api/orders/" + order.orderId + "/status?status=" + next.name()))
+                        .header("Authorization", "Bearer " + staffToken)
+                        .PUT(HttpRequest.BodyPublishers.noBody()));
+                if (response != null && order.step + 1 < WAITER_FLOW.length) {
+                    openOrders.add(new OpenOrder(order.orderId, order.step + 1));
+                }
+            }
+            case "dashboard" -> send("GET /api/admin/statistics", get("/api/admin/statistics", adminToken));
+            default -> throw new IllegalArgumentException("Unknown operation in loadtest.mix: " + operation);
+        }
+    }
+
+    private void placeOrder(SeededMenu menu, ThreadLocalRandom random) {
+        StringBuilder products = new StringBuilder();
+        int lines = 1 + random.nextInt(4);
+        for (int i = 0; i < lines; i++) {
+            if (i > 0) {
+                products.append(',');
+            }
+            products.append("{\"productId\":").append(menu.productIds.get(random.nextInt(menu.productIds.size())))
+                    .append(",\"quantity\":").append(1 + random.nextInt(3)).append('}');
+        }
+        String body = "{\"restorantId\":" + menu.restaurantId
+                + ",\"orderStatus\":\"PENDING\",\"totalPrice\":0,\"customerName\":\"Load Guest\""
+                + ",\"products\":[" + products + "]}";
+
+        HttpResponse<String> response = send("POST /api/orders", HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/orders"))
+                .header("Authorization", "Bearer " + customerTokens.get(random.nextInt(customerTokens.size())))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)));
+        if (response != null) {
+            // "Order created successfully with ID: 42"
+            String text = response.body();
+            openOrders.add(new OpenOrder(Long.parseLong(text.substring(text.lastIndexOf(' ') + 1).trim()), 0));
+        }
+    }
+
+    private HttpRequest.Builder get(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder().uri(URI.create(baseUrl + path)).GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    /**
+     * Sends the request and records its latency under the endpoint name.
+     * Returns the response on a 2xx status, null otherwise.
+     */
+    private HttpResponse<String> send(String endpoint, HttpRequest.Builder request) {
+        long started = System.nanoTime();
+        HttpResponse<String> response = null;
+        try {
+            response = httpClient.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString());
+        } catch (Exception e) {
+            // Counted as an error below
+        }
+        long finished = System.nanoTime();
+        boolean ok = response != null && response.statusCode() / 100 == 2;
+        if (started >= recordFromNanos) {
+            stats.computeIfAbsent(endpoint, name -> new EndpointStats()).record(finished - started, ok);
+        }
+        return ok ? response : null;
+    }
+
+    private void report() throws Exception {
+        System.out.println();
+        System.out.printf("%-34s %9s %7s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms");
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("users", users);
+        json.put("durationSeconds", durationSeconds);
+        json.put("mix", mix);
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        stats.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> {
+                    EndpointStats s = entry.getValue();
+                    Histogram h = s.latencies;
+                    long requests = h.getTotalCount();
+                    double throughput = (double) requests / durationSeconds;
+                    System.out.printf("%-34s %9d %7d %9.1f %9.2f %9.2f %9.2f%n", entry.getKey(), requests,
+                            s.errors.sum(), throughput, millis(h.getValueAtPercentile(50)),
+                            millis(h.getValueAtPercentile(99)), millis(h.getMaxValue()));
+
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("requests", requests);
+                    row.put("errors", s.errors.sum());
+                    row.put("throughputPerSecond", throughput);
+                    row.put("p50Millis", millis(h.getValueAtPercentile(50)));
+                    row.put("p99Millis", millis(h.getValueAtPercentile(99)));
+                    row.put("maxMillis", millis(h.getMaxValue()));
+                    endpoints.put(entry.getKey(), row);
+                });
+        json.put("endpoints", endpoints);
+
+        File file = new File(reportFile);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, json);
+        System.out.println("Report written to " + file.getAbsolutePath());
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static class EndpointStats {
+        // Microseconds, up to one minute, three significant digits
+        private final Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+        private final LongAdder errors = new LongAdder();
+
+        void record(long nanos, boolean ok) {
+            latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), latencies.getHighestTrackableValue()));
+            if (!ok) {
+                errors.increment();
+            }
+        }
+    }
+
+    @AllArgsConstructor
+    private static class SeededMenu {
+        private final Long restaurantId;
+        private final Long menuId;
+        private final List<Long> productIds;
+    }
+
+    @AllArgsConstructor
+    private static class OpenOrder {
+        private final Long orderId;
+        private final int step;
+    }
+}
@@ -0,0 +1,379 @@
+package com.example.qr_menu.repositories;
+
+import com.example.qr_menu.config.TestConfig;
+import com.example.qr_menu.entities.*;
+import jakarta.persistence.EntityManager;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Query-plan regression harness. Every Spring Data query method in this package is invoked against
+ * a seeded database, each SQL statement it issues is recorded and run through EXPLAIN, and the test
+ * fails when a plan falls back to a full table scan. New repository methods are picked up
+ * automatically; a method that really has to read a whole table goes into {@link #FULL_SCANS_ALLOWED}
+ * together with the reason.
+ * Runs on its own in-memory database because seeding and ANALYZE commit, and seeds it once per class.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:queryplans;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;MODE=MySQL",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.qr_menu.repositories.RepositoryQueryPlanTest$SqlRecorder"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class RepositoryQueryPlanTest {
+
+    // Repository.method -> why reading the whole table is intended
+    private static final Map<String, String> FULL_SCANS_ALLOWED = Map.of(
+            "AccountRepository.findAllWithRestaurants", "lists every account with its restaurants",
+            "MenuRepository.bumpAllContentVersions", "updates every menu on purpose",
+            // MySQL reads idx_orders_time backwards and stops at the limit; H2 ignores the limit when ordering joins
+            "OrderRepository.findLatest", "first page of all orders for admins"
+    );
+
+    // H2 marks a full scan as "/* PUBLIC.TABLE_NAME.tableScan */" in the plan
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\* ([\\w.]+)\\.tableScan \\*/");
+
+    // "CREATE INDEX name ON table (columns)" in a migration
+    private static final Pattern CREATE_INDEX = Pattern.compile(
+            "CREATE\\s+(?:UNIQUE\\s+)?INDEX\\s+(\\w+)\\s+ON\\s+(\\w+)\\s*\\(([^)]*)\\)", Pattern.CASE_INSENSITIVE);
+    // "CREATE TABLE table (... INDEX name (columns) ...)" in a migration
+    private static final Pattern CREATE_TABLE = Pattern.compile(
+            "CREATE\\s+TABLE\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern INLINE_INDEX = Pattern.compile(
+            "(?:INDEX|KEY)\\s+(\\w+)\\s*\\(([^)]*)\\)", Pattern.CASE_INSENSITIVE);
+
+    private static final String REPOSITORY_PACKAGE = RepositoryQueryPlanTest.class.getPackageName();
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    // Entity-typed query parameters (findByManager, findByMenu, ...) get these seeded instances
+    private final Map<Class<?>, Object> seeded = new HashMap<>();
+
+    @BeforeAll
+    void seedDatabase() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> seed());
+        // Refresh selectivity statistics so the optimizer plans against the seeded row counts
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @TestFactory
+    Stream<DynamicTest> repositoryQueriesUseIndexes() {
+        Repositories repositories = new Repositories(context);
+        List<DynamicTest> tests = new ArrayList<>();
+        for (Class<?> domainType : repositories) {
+            RepositoryInformation information = repositories.getRequiredRepositoryInformation(domainType);
+            Class<?> repositoryInterface = information.getRepositoryInterface();
+            if (!repositoryInterface.getPackageName().equals(REPOSITORY_PACKAGE)) {
+                continue;
+            }
+            Object repository = repositories.getRepositoryFor(domainType).orElseThrow();
+            for (Method method : information.getQueryMethods()) {
+                String name = repositoryInterface.getSimpleName() + "." + method.getName();
+                tests.add(DynamicTest.dynamicTest(name, () -> checkPlans(name, repository, method)));
+            }
+        }
+        tests.sort(Comparator.comparing(DynamicTest::getDisplayName));
+        return tests.stream();
+    }
+
+    /**
+     * Tests build the schema from the entities while production runs the Flyway migrations, so a plan
+     * checked above only holds in production if both declare the same indexes.
+     */
+    @Test
+    void migrationIndexesMatchEntityIndexes() throws IOException {
+        Map<String, String> expected = new TreeMap<>();
+        Resource[] migrations = new PathMatchingResourcePatternResolver().getResources("classpath:db/migration/*.sql");
+        for (Resource migration : migrations) {
+            String script = migration.getContentAsString(StandardCharsets.UTF_8).replaceAll("--[^\\n]*", "");
+            for (String statement : script.split(";")) {
+                Matcher created = CREATE_INDEX.matcher(statement);
+                while (created.find()) {
+                    expected.put(created.group(1).toUpperCase(), indexDefinition(created.group(2), created.group(3)));
+                }
+                Matcher table = CREATE_TABLE.matcher(statement);
+                if (table.find()) {
+                    Matcher inline = INLINE_INDEX.matcher(statement);
+                    while (inline.find()) {
+                        expected.put(inline.group(1).toUpperCase(), indexDefinition(table.group(1), inline.group(2)));
+                    }
+                }
+            }
+        }
+        assertFalse(expected.isEmpty(), "no indexes found in " + Arrays.toString(migrations));
+
+        // H2 keeps a unique index as a constraint and names its backing index after it
+        Map<String, String> actual = new TreeMap<>();
+        jdbcTemplate.query("""
+                SELECT INDEX_NAME, TABLE_NAME, GROUP_CONCAT(COLUMN_NAME ORDER BY ORDINAL_POSITION) AS COLUMNS
+                FROM (SELECT INDEX_NAME, TABLE_NAME, COLUMN_NAME, ORDINAL_POSITION
+                      FROM INFORMATION_SCHEMA.INDEX_COLUMNS WHERE TABLE_SCHEMA = 'PUBLIC'
+                      UNION ALL
+                      SELECT CONSTRAINT_NAME, TABLE_NAME, COLUMN_NAME, ORDINAL_POSITION
+                      FROM INFORMATION_SCHEMA.KEY_COLUMN_USAGE WHERE TABLE_SCHEMA = 'PUBLIC')
+                GROUP BY INDEX_NAME, TABLE_NAME
+                """, (ResultSet resultSet) -> {
+            actual.put(resultSet.getString("INDEX_NAME"),
+                    indexDefinition(resultSet.getString("TABLE_NAME"), resultSet.getString("COLUMNS")));
+        });
+
+        expected.forEach((index, definition) -> assertEquals(definition, actual.get(index),
+                "index " + index + " from the migrations is not declared the same way on the entity"));
+    }
+
+    private static String indexDefinition(String table, String columns) {
+        return (table + " (" + columns.replaceAll("\\s+", "") + ")").toUpperCase();
+    }
+
+    private void checkPlans(String name, Object repository, Method method) {
+        List<String> statements = recordStatements(repository, method);
+        assertFalse(statements.isEmpty(), name + " did not run any SQL");
+
+        for (String sql : statements) {
+            String plan = explain(sql);
+            Set<String> scanned = new TreeSet<>();
+            Matcher matcher = TABLE_SCAN.matcher(plan);
+            while (matcher.find()) {
+                scanned.add(matcher.group(1));
+            }
+            if (!scanned.isEmpty() && !FULL_SCANS_ALLOWED.containsKey(name)) {
+                fail(name + " scans " + scanned + " without an index\nSQL: " + sql + "\nPlan: " + plan);
+            }
+        }
+    }
+
+    private List<String> recordStatements(Object repository, Method method) {
+        Object[] arguments = Arrays.stream(method.getParameters()).map(this::argumentFor).toArray();
+        return transactionTemplate.execute(status -> {
+            // Modifying queries run too, so every invocation is rolled back
+            status.setRollbackOnly();
+            SqlRecorder.STATEMENTS.clear();
+            try {
+                method.invoke(repository, arguments);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException(method + " failed", e.getCause());
+            }
+            return new ArrayList<>(SqlRecorder.STATEMENTS);
+        });
+    }
+
+    private String explain(String sql) {
+        // H2 explains a statement without binding its parameters
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql);
+                 ResultSet resultSet = statement.executeQuery()) {
+                StringBuilder plan = new StringBuilder();
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+                return plan.toString();
+            }
+        });
+    }
+
+    private Object argumentFor(Parameter parameter) {
+        Class<?> type = parameter.getType();
+        if (seeded.containsKey(type)) {
+            return seeded.get(type);
+        }
+        if (type == Long.class || type == long.class) {
+            return type == long.class ? System.currentTimeMillis() : 1L;
+        }
+        if (type == Integer.class || type == int.class) {
+            return 1;
+        }
+        if (type == String.class) {
+            return "guest1@example.com";
+        }
+        if (type == Date.class) {
+            return new Date();
+        }
+        if (type == Limit.class) {
+            return Limit.of(20);
+        }
+        if (type == Pageable.class) {
+            // A full second page, so paged queries also run their count query
+            return PageRequest.of(1, 2);
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return List.of(1L, 2L, 3L);
+        }
+        if (type.isEnum()) {
+            return type.getEnumConstants()[0];
+        }
+        throw new IllegalStateException("No test argument for " + parameter + " of " + parameter.getDeclaringExecutable());
+    }
+
+    private void seed() {
+        List<Account> guests = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            guests.add(persist(account("guest" + i, Account.AccountType.ROLE_USER)));
+        }
+        List<Allergen> allergens = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            allergens.add(persist(Allergen.builder().allergenName("Allergen " + i).build()));
+        }
+
+        Account manager = null;
+        Restorant restaurant = null;
+        Menu menu = null;
+        Order order = null;
+        int productCount = 0;
+        for (int r = 0; r < 8; r++) {
+            manager = persist(account("manager" + r, Account.AccountType.ROLE_MANAGER));
+            restaurant = persist(Restorant.builder()
+                    .restorantName("Restaurant " + r)
+                    .phoneNumber("555-01" + r)
+                    .account(manager)
+                    .build());
+            persist(ManagerAssignment.builder()
+                    .manager(manager)
+                    .restorant(restaurant)
+                    .assignedAt(new Timestamp(System.currentTimeMillis()))
+                    .build());
+
+            List<Product> products = new ArrayList<>();
+            for (int m = 0; m < 3; m++) {
+                menu = persist(Menu.builder()
+                        .category("Menu " + m)
+                        .restorant(restaurant)
+                        .menuUrl("http://localhost:8080/menu/" + r + "/" + m)
+                        .defaultProductImage("default_product.png")
+                        .build());
+                for (int c = 0; c < 2; c++) {
+                    Category category = persist(Category.builder().name("Category " + c).menu(menu).build());
+                    for (int p = 0; p < 5; p++) {
+                        Product product = Product.builder()
+                                .productName("Product " + productCount)
+                                .productPrice(5.0 + p)
+                                .productImage("default_product.png")
+                                .menu(menu)
+                                .category(category)
+                                .build();
+                        product.getAllergens().add(allergens.get(productCount++ % allergens.size()));
+                        products.add(persist(product));
+                    }
+                }
+            }
+
+            for (int o = 0; o < 25; o++) {
+                Account guest = guests.get((r * 25 + o) % guests.size());
+                order = persist(Order.builder()
+                        .orderTime(new Date(System.currentTimeMillis() - (r * 25L + o) * 60_000L))
+                        .orderStatus(Order.OrderStatus.PENDING)
+                        .totalPrice(20.0)
+                        .account(guest)
+                        .restorant(restaurant)
+                        .build());
+                for (int l = 0; l < 2; l++) {
+                    Product product = products.get((o + l * 7) % products.size());
+                    persist(OrderProduct.builder()
+                            .id(new OrderProductId(order.getId(), product.getId()))
+                            .order(order)
+                            .product(product)
+                            .quantity(1)
+                            .unitPrice(product.getProductPrice())
+                            .build());
+                }
+            }
+
+            Favorite favorite = new Favorite();
+            favorite.setAccount(guests.get(r));
+            favorite.setProduct(products.get(0));
+            persist(favorite);
+        }
+
+        seeded.put(Account.class, manager);
+        seeded.put(Restorant.class, restaurant);
+        seeded.put(Menu.class, menu);
+        seeded.put(Order.class, order);
+    }
+
+    private Account account(String name, Account.AccountType type) {
+        return Account.builder()
+                .accountName(name)
+                .firstName("Test")
+                .lastName(name)
+                .mailAddress(name + "@example.com")
+                .password("not-a-real-hash")
+                .accountType(type)
+                .createdAt(new Timestamp(System.currentTimeMillis()))
+                .build();
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    /**
+     * Collects the SQL Hibernate prepares; registered through
+     * {@code hibernate.session_factory.statement_inspector}.
+     */
+    public static class SqlRecorder implements StatementInspector {
+
+        static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.qr_menu.security;
+
+import com.example.qr_menu.entities.Account;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TokenRevocationServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TokenRevocationService service;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:tokenrevocation;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(h2);
+        jdbcTemplate.execute("CREATE TABLE account (id BIGINT PRIMARY KEY, token_version INT NOT NULL DEFAULT 0)");
+        jdbcTemplate.execute("CREATE TABLE revoked_account (account_id BIGINT PRIMARY KEY, denied_until BIGINT NOT NULL)");
+        service = new TokenRevocationService(jdbcTemplate, 3600);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    @DisplayName("A reload that read the table before a revocation does not undo it")
+    void testRefreshKeepsNewerLocalRevocation() {
+        jdbcTemplate.update("INSERT INTO account (id, token_version) VALUES (1, 0)");
+        Account account = Account.builder().id(1L).tokenVersion(0).build();
+
+        // Not saved yet, as when the refresh query ran just before the commit
+        service.revokeTokens(account);
+        service.refresh();
+
+        assertTrue(service.isRevoked(claims(1L, 0)));
+        assertFalse(service.isRevoked(claims(1L, 1)));
+    }
+
+    @Test
+    @DisplayName("Revocations written by another instance are picked up on refresh")
+    void testRefreshLoadsRevocationsFromDatabase() {
+        jdbcTemplate.update("INSERT INTO account (id, token_version) VALUES (2, 3)");
+        jdbcTemplate.update("INSERT INTO revoked_account (account_id, denied_until) VALUES (4, ?)",
+                System.currentTimeMillis() + 60_000);
+        jdbcTemplate.update("INSERT INTO revoked_account (account_id, denied_until) VALUES (5, ?)",
+                System.currentTimeMillis() - 1);
+
+        service.refresh();
+
+        assertTrue(service.isRevoked(claims(2L, 2)));
+        assertFalse(service.isRevoked(claims(2L, 3)));
+        assertTrue(service.isRevoked(claims(4L, 0)));
+        assertFalse(service.isRevoked(claims(5L, 0)));
+        assertTrue(jdbcTemplate.queryForList("SELECT account_id FROM revoked_account WHERE account_id = 5").isEmpty());
+    }
+
+    private static Claims claims(Long accountId, int tokenVersion) {
+        Claims claims = Jwts.claims();
+        claims.put("accountId", accountId);
+        claims.put("tokenVersion", tokenVersion);
+        return claims;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.qr_menu.services;
+
+import com.example.qr_menu.config.TestConfig;
+import com.example.qr_menu.dto.OrderDTO;
+import com.example.qr_menu.entities.*;
+import com.example.qr_menu.exceptions.ResourceNotFoundException;
+import com.example.qr_menu.repositories.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Status changes and deletes racing on the same order. These need real commits, so the class is not
+ * transactional, runs on its own in-memory database and removes what it created afterwards.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@TestPropertySource(properties =
+        "spring.datasource.url=jdbc:h2:mem:orderconcurrency;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;MODE=MySQL;LOCK_TIMEOUT=10000")
+public class OrderStatusConcurrencyTest {
+
+    @Autowired
+    private TestConfig testConfig;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    @Autowired
+    private MenuRepository menuRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Account testUser;
+    private Restorant testRestaurant;
+    private Menu testMenu;
+    private Category testCategory;
+    private Product testProduct;
+    private Long orderId;
+
+    @BeforeEach
+    void setUp() {
+        testUser = accountRepository.save(testConfig.createTestUser());
+        testRestaurant = restaurantRepository.save(testConfig.createTestRestaurant(testUser));
+        testMenu = menuRepository.save(testConfig.createTestMenu(testRestaurant));
+        testCategory = categoryRepository.save(testConfig.createTestCategory(testMenu));
+        testProduct = productRepository.save(testConfig.createTestProduct(testMenu, testCategory));
+
+        OrderDTO.ProductOrderDTO line = new OrderDTO.ProductOrderDTO();
+        line.setProductId(testProduct.getId());
+        line.setQuantity(3);
+        OrderDTO orderDTO = new OrderDTO();
+        orderDTO.setAccountId(testUser.getId());
+        orderDTO.setRestorantId(testRestaurant.getId());
+        orderDTO.setProducts(List.of(line));
+        orderId = orderService.createOrder(orderDTO).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM product_sales_daily WHERE restorant_id = ?", testRestaurant.getId());
+        orderRepository.findById(orderId).ifPresent(orderRepository::delete);
+        productRepository.deleteById(testProduct.getId());
+        categoryRepository.deleteById(testCategory.getId());
+        menuRepository.deleteById(testMenu.getId());
+        restaurantRepository.deleteById(testRestaurant.getId());
+        accountRepository.deleteById(testUser.getId());
+    }
+
+    @Test
+    @DisplayName("Concurrent cancels reverse the sales rollup once")
+    void testConcurrentCancelsReverseRollupOnce() throws Exception {
+        assertEquals(3, soldQuantity());
+
+        runConcurrently(
+                () -> orderService.updateOrderStatus(orderId, Order.OrderStatus.CANCELLED),
+                () -> orderService.updateOrderStatus(orderId, Order.OrderStatus.CANCELLED));
+
+        assertEquals(0, soldQuantity());
+        assertEquals(Order.OrderStatus.CANCELLED, orderRepository.findById(orderId).orElseThrow().getOrderStatus());
+    }
+
+    @Test
+    @DisplayName("A cancel racing a delete reverses the sales rollup once")
+    void testCancelRacingDeleteReversesRollupOnce() throws Exception {
+        assertEquals(3, soldQuantity());
+
+        runConcurrently(
+                () -> orderService.updateOrderStatus(orderId, Order.OrderStatus.CANCELLED),
+                () -> orderService.deleteOrder(orderId));
+
+        assertEquals(0, soldQuantity());
+        assertFalse(orderRepository.existsById(orderId));
+    }
+
+    private long soldQuantity() {
+        Long quantity = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(quantity), 0) FROM product_sales_daily WHERE product_id = ?",
+                Long.class, testProduct.getId());
+        return quantity != null ? quantity : 0;
+    }
+
+    // Starts both tasks together; a task that loses the race to a delete may fail with "not found"
+    private void runConcurrently(Callable<?> first, Callable<?> second) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = List.of(
+                    executor.submit(() -> { start.await(); return first.call(); }),
+                    executor.submit(() -> { start.await(); return second.call(); }));
+            start.countDown();
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (!(e.getCause() instanceof ResourceNotFoundException)) {
+                        throw e;
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
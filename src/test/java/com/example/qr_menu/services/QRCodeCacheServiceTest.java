@@ -0,0 +1,64 @@
+package com.example.qr_menu.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class QRCodeCacheServiceTest {
+
+    private static final String MENU_URL = "http://localhost:5173/menu/1";
+
+    @TempDir
+    Path cacheDir;
+
+    @Test
+    @DisplayName("A restarted cache serves renderings from its disk directory")
+    void testHitAfterRestart() throws Exception {
+        QRCodeCacheService.QRCodeKey key = key(MENU_URL);
+        byte[] image = "png bytes".getBytes(StandardCharsets.UTF_8);
+        String etag = newCache().get(key, () -> image).getEtag();
+
+        QRCodeCacheService restarted = newCache();
+        QRCodeCacheService.CachedQRCode cached = restarted.get(key, () -> {
+            throw new AssertionError("rendered again after restart");
+        });
+
+        assertArrayEquals(image, cached.getBytes());
+        assertEquals(etag, cached.getEtag());
+        assertEquals(1, restarted.getStats().hitCount());
+    }
+
+    @Test
+    @DisplayName("Evicting a URL drops its renderings from memory and disk only")
+    void testEvictDropsOnlyThatUrl() {
+        QRCodeCacheService cache = newCache();
+        QRCodeCacheService.QRCodeKey oldUrl = key(MENU_URL);
+        QRCodeCacheService.QRCodeKey otherUrl = key("http://localhost:5173/menu/2");
+        cache.put(oldUrl, new byte[]{1});
+        cache.put(otherUrl, new byte[]{2});
+
+        cache.evict(MENU_URL);
+
+        assertNull(cache.getIfPresent(oldUrl));
+        assertNotNull(cache.getIfPresent(otherUrl));
+        QRCodeCacheService restarted = newCache();
+        assertNull(restarted.getIfPresent(oldUrl));
+        assertNotNull(restarted.getIfPresent(otherUrl));
+    }
+
+    private QRCodeCacheService newCache() {
+        return new QRCodeCacheService(10, 10, cacheDir.toString());
+    }
+
+    private static QRCodeCacheService.QRCodeKey key(String text) {
+        return new QRCodeCacheService.QRCodeKey(text, 200, 4, "L", "png");
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.qr_menu.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AfterCommitTest {
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Outside a transaction actions run right away")
+    void testRunsImmediatelyWithoutTransaction() {
+        AtomicInteger runs = new AtomicInteger();
+
+        AfterCommit.run(runs::incrementAndGet);
+        AfterCommit.invalidate(runs::incrementAndGet);
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    @DisplayName("In a transaction run waits for the commit and invalidate runs before and after it")
+    void testWaitsForCommit() {
+        AtomicInteger committed = new AtomicInteger();
+        AtomicInteger invalidated = new AtomicInteger();
+        TransactionSynchronizationManager.initSynchronization();
+
+        AfterCommit.run(committed::incrementAndGet);
+        AfterCommit.invalidate(invalidated::incrementAndGet);
+        assertEquals(0, committed.get());
+        assertEquals(1, invalidated.get());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(1, committed.get());
+        assertEquals(2, invalidated.get());
+    }
+}